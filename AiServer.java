@@ -0,0 +1,298 @@
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 无界面的多局 AI 对战服务器：使用联机对战的文本协议（见 OnlineGameController），
+ * 联机界面“加入房间”连到本服务器即可与 AI 对弈，同时可以有几百局在进行。
+ * - 连接建立后服务器发送 START BLACK|WHITE（AI 执黑时随即落第一子），
+ *   之后收到 MOVE/TIMEOUT_MOVE 就回复 AI 的 MOVE；NEW 重新开局；悔棋、求和一律拒绝
+ * - 所有对局共享一个固定大小的引擎工作线程池，每次搜索单线程（Engine.search，可重入）
+ * - 公平调度：一局同一时间最多有一个待处理的搜索，池的 FIFO 队列即按请求先后轮流服务各局
+ * - 时间：每局有总时间预算，每步用时 = min(每步上限, 剩余时间 / MOVES_TO_GO)，
+ *   排队等待的时间从这一步的预算中扣除，负载高时回复延迟仍接近预算
+ * - 准入控制：对局数达到上限时，新连接收到一条说明后被关闭
+ * - 内存：每局有自己的置换表（-hash MB）；给定 -memory 时对局数上限不超过 memory / hash
+ *
+ * 用法：java AiServer [-port 端口] [-workers 线程数] [-max-games 对局数] [-hash 每局置换表MB]
+ *                     [-memory 置换表总内存MB] [-move-time 每步毫秒] [-game-time 每局毫秒]
+ *                     [-depth 最大深度] [-ai black|white]
+ * 例如：java AiServer -port 9999 -workers 8 -max-games 300 -hash 4 -move-time 1000
+ */
+public class AiServer {
+
+	private static final int BOARD_SIZE = 15;
+	// 每步的时间预算按“还要走这么多步”从剩余时间中分配
+	private static final int MOVES_TO_GO = 20;
+	// 每步至少搜索的时间（深度 1 总会完成，保证有着法）
+	private static final long MIN_SLICE_MILLIS = 20;
+	private static final long REPORT_SECONDS = 10;
+
+	private final int port;
+	private final int maxGames;
+	private final int hashMegabytes;
+	private final long moveTime;
+	private final long gameTime;
+	private final int maxDepth;
+	private final boolean aiBlack;
+	private final int workerCount;
+	private final ExecutorService workers;
+
+	private final AtomicInteger gameIds = new AtomicInteger();
+	private final AtomicInteger activeGames = new AtomicInteger();
+	private final AtomicInteger queued = new AtomicInteger();
+	// 上次报告以来的回复次数、总延迟与最大延迟
+	private final AtomicLong replies = new AtomicLong();
+	private final AtomicLong latencyTotal = new AtomicLong();
+	private final AtomicLong latencyMax = new AtomicLong();
+	private final PrintStream console = System.out;
+
+	AiServer(int port, int workerCount, int maxGames, int hashMegabytes, long moveTime, long gameTime, int maxDepth,
+			boolean aiBlack) {
+		this.port = port;
+		this.maxGames = maxGames;
+		this.hashMegabytes = hashMegabytes;
+		this.moveTime = moveTime;
+		this.gameTime = gameTime;
+		this.maxDepth = maxDepth;
+		this.aiBlack = aiBlack;
+		this.workerCount = workerCount;
+		AtomicInteger ids = new AtomicInteger();
+		this.workers = Executors.newFixedThreadPool(workerCount, r -> {
+			Thread t = new Thread(r, "ai-server-worker-" + ids.incrementAndGet());
+			t.setDaemon(true);
+			return t;
+		});
+	}
+
+	public static void main(String[] args) throws IOException {
+		int port = 9999;
+		int workers = Runtime.getRuntime().availableProcessors();
+		int maxGames = 200;
+		int hash = 4;
+		int memory = 0;
+		long moveTime = 1000;
+		long gameTime = 60_000;
+		int depth = SearchLimit.MAX_DEPTH;
+		boolean aiBlack = false;
+		for (int i = 0; i + 1 < args.length; i += 2) {
+			String value = args[i + 1];
+			switch (args[i]) {
+				case "-port" -> port = Integer.parseInt(value);
+				case "-workers" -> workers = Integer.parseInt(value);
+				case "-max-games" -> maxGames = Integer.parseInt(value);
+				case "-hash" -> hash = Integer.parseInt(value);
+				case "-memory" -> memory = Integer.parseInt(value);
+				case "-move-time" -> moveTime = Long.parseLong(value);
+				case "-game-time" -> gameTime = Long.parseLong(value);
+				case "-depth" -> depth = Integer.parseInt(value);
+				case "-ai" -> aiBlack = "black".equalsIgnoreCase(value);
+				default -> throw new IllegalArgumentException("未知的选项: " + args[i]);
+			}
+		}
+		hash = Math.max(1, hash);
+		if (memory > 0) maxGames = Math.min(maxGames, Math.max(1, memory / hash));
+		new AiServer(port, Math.max(1, workers), Math.max(1, maxGames), hash, Math.max(MIN_SLICE_MILLIS, moveTime),
+				Math.max(MIN_SLICE_MILLIS, gameTime), depth, aiBlack).run();
+	}
+
+	void run() throws IOException {
+		console.println("AI 服务器端口 " + port + "  工作线程 " + workerCount
+				+ "  对局上限 " + maxGames + "  每局置换表 " + hashMegabytes + " MB  每步 " + moveTime + " ms  每局 " + gameTime
+				+ " ms  AI 执" + (aiBlack ? "黑" : "白"));
+		ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread t = new Thread(r, "ai-server-report");
+			t.setDaemon(true);
+			return t;
+		});
+		reporter.scheduleAtFixedRate(this::report, REPORT_SECONDS, REPORT_SECONDS, TimeUnit.SECONDS);
+		try (ServerSocket server = new ServerSocket(port)) {
+			while (true) {
+				Socket socket = server.accept();
+				try {
+					accept(socket);
+				} catch (IOException e) {
+					console.println("连接初始化失败: " + e.getMessage());
+					try { socket.close(); } catch (IOException ignored) {}
+				}
+			}
+		}
+	}
+
+	// 准入控制：对局数已满时告知对方并关闭连接
+	private void accept(Socket socket) throws IOException {
+		TcpPeer peer = new TcpPeer(socket);
+		if (activeGames.incrementAndGet() > maxGames) {
+			activeGames.decrementAndGet();
+			peer.sendLine("CHAT " + Base64.getEncoder().encodeToString("AI 服务器已满，请稍后再试".getBytes(StandardCharsets.UTF_8)));
+			peer.close();
+			return;
+		}
+		Game game = new Game(gameIds.incrementAndGet(), peer);
+		peer.startReader(game);
+		game.start();
+	}
+
+	// 周期性输出负载：进行中的对局、排队的搜索、回复延迟
+	private void report() {
+		long n = replies.getAndSet(0);
+		long total = latencyTotal.getAndSet(0);
+		long max = latencyMax.getAndSet(0);
+		if (n == 0 && activeGames.get() == 0) return;
+		console.printf("对局 %d  排队 %d  回复 %d 次  平均延迟 %d ms  最大延迟 %d ms%n", activeGames.get(), queued.get(), n,
+				n == 0 ? 0 : total / n, max);
+	}
+
+	/**
+	 * 一局对局：棋盘、AI 剩余时间与自己的引擎（置换表大小即每局内存上限）。
+	 * 网络线程与工作线程通过对象锁访问；NEW 使 generation 加一，之前发起的搜索结果被丢弃。
+	 */
+	private final class Game implements TcpPeer.Listener {
+		private final int id;
+		private final TcpPeer peer;
+		private final Minimax engine;
+		private final int aiColor = aiBlack ? BitBoard.BLACK : BitBoard.WHITE;
+		private BitBoard board = new BitBoard(BOARD_SIZE);
+		private long clock = gameTime; // AI 本局剩余时间
+		private int generation = 0;
+		private boolean searching = false;
+		private boolean finished = false;
+		private boolean closed = false;
+
+		Game(int id, TcpPeer peer) {
+			this.id = id;
+			this.peer = peer;
+			this.engine = new Minimax(new Board(BOARD_SIZE), hashMegabytes);
+			this.engine.setThreads(1);
+		}
+
+		synchronized void start() {
+			console.println("对局 #" + id + " 开始");
+			peer.sendLine("START " + (aiBlack ? "BLACK" : "WHITE"));
+			scheduleIfAiTurn();
+		}
+
+		@Override
+		public void onLine(String line) {
+			line = line.trim();
+			if (line.startsWith("MOVE ") || line.startsWith("TIMEOUT_MOVE ")) {
+				String[] sp = line.split("\\s+");
+				if (sp.length < 3) return;
+				try {
+					onPlayerMove(Integer.parseInt(sp[1]), Integer.parseInt(sp[2]));
+				} catch (NumberFormatException ignored) {
+				}
+			} else if (line.equals("NEW")) {
+				newGame();
+			} else if (line.equals("UNDO_REQ")) {
+				peer.sendLine("UNDO_NO");
+			} else if (line.equals("DRAW_REQ")) {
+				peer.sendLine("DRAW_NO");
+			} else if (line.equals("RESIGN")) {
+				synchronized (this) {
+					finished = true;
+				}
+			}
+		}
+
+		@Override
+		public void onClosed(String reason) {
+			synchronized (this) {
+				if (closed) return;
+				closed = true;
+			}
+			activeGames.decrementAndGet();
+			console.println("对局 #" + id + " 结束: " + reason);
+		}
+
+		// 玩家落子 (x=列, y=行)：非法或不在玩家回合时忽略
+		private synchronized void onPlayerMove(int x, int y) {
+			int opp = aiColor == BitBoard.WHITE ? BitBoard.BLACK : BitBoard.WHITE;
+			if (finished || closed || toMove() != opp) return;
+			if (x < 0 || y < 0 || x >= BOARD_SIZE || y >= BOARD_SIZE || !board.isEmpty(y, x)) return;
+			if (play(y, x, opp)) return;
+			scheduleIfAiTurn();
+		}
+
+		private synchronized void newGame() {
+			generation++;
+			board = new BitBoard(BOARD_SIZE);
+			clock = gameTime;
+			finished = false;
+			searching = false;
+			scheduleIfAiTurn();
+		}
+
+		private int toMove() {
+			return board.getStoneCount() % 2 == 0 ? BitBoard.BLACK : BitBoard.WHITE;
+		}
+
+		// 落子并判断胜负/和棋，对局结束返回 true
+		private boolean play(int row, int col, int color) {
+			board.place(row, col, color);
+			if (board.getScore(color == BitBoard.BLACK, color != BitBoard.BLACK) >= Minimax.getWinScore()
+					|| board.getStoneCount() == BOARD_SIZE * BOARD_SIZE) {
+				finished = true;
+			}
+			return finished;
+		}
+
+		// 轮到 AI 时把搜索提交到工作线程池；局面以不可变快照传给引擎
+		private void scheduleIfAiTurn() {
+			if (finished || closed || searching || toMove() != aiColor) return;
+			searching = true;
+			Position position = Position.of(board, aiColor);
+			long budget = Math.min(moveTime, Math.max(MIN_SLICE_MILLIS, clock / MOVES_TO_GO));
+			int gen = generation;
+			long enqueued = System.currentTimeMillis();
+			queued.incrementAndGet();
+			workers.execute(() -> think(position, budget, gen, enqueued));
+		}
+
+		// 工作线程：扣除排队时间后搜索，回到对象锁内检查对局是否仍然有效再落子
+		private void think(Position position, long budget, int gen, long enqueued) {
+			queued.decrementAndGet();
+			synchronized (this) {
+				if (closed || gen != generation) return;
+			}
+			long waited = System.currentTimeMillis() - enqueued;
+			SearchLimit limit = SearchLimit.of(maxDepth, Math.max(MIN_SLICE_MILLIS, budget - waited));
+			SearchResult result;
+			try {
+				result = engine.search(position, limit);
+			} catch (RuntimeException e) {
+				console.println("对局 #" + id + " 搜索异常: " + e);
+				// 主动关闭时 TcpPeer 不会回调 onClosed
+				peer.close();
+				onClosed("搜索异常");
+				return;
+			}
+			long latency = System.currentTimeMillis() - enqueued;
+			replies.incrementAndGet();
+			latencyTotal.addAndGet(latency);
+			latencyMax.accumulateAndGet(latency, Math::max);
+
+			synchronized (this) {
+				if (closed || gen != generation) return;
+				searching = false;
+				clock = Math.max(0, clock - latency);
+				if (!result.hasMove()) {
+					finished = true;
+					return;
+				}
+				int[] move = result.getMove();
+				play(move[0], move[1], aiColor);
+				peer.sendLine("MOVE " + move[1] + " " + move[0]);
+			}
+		}
+	}
+}
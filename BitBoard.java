@@ -0,0 +1,498 @@
+/**
+ * 位棋盘：AI 搜索专用的棋盘表示。
+ * 每种颜色分别维护四个方向的位集合：
+ * - rows[颜色][行]         第 c 位表示 (行, c)
+ * - cols[颜色][列]         第 r 位表示 (r, 列)
+ * - diags[颜色][列-行+n-1]  左上到右下，第 min(r,c) 位
+ * - antiDiags[颜色][行+列]  右上到左下，第 r-起始行 位
+ * 连子与棋型判断全部通过移位/掩码完成，不再逐格扫描 int[][]。
+ * 评估是增量的：每条线缓存双方在两种回合下的得分，落子/提子时只重算经过该格的四条线，
+ * 因此 getScore 为 O(1)。
+ * 同时增量维护局面的 Zobrist 哈希，供置换表使用。
+ * 候选落子集合（与棋子相邻的空位）也是增量维护的：每格记录 8 邻域内的棋子数，
+ * 计数从 0 变 1 时加入候选、变回 0 时移出，生成着法只需遍历候选位集合。
+ * 启用神经网络评估（setNnue）时，还会增量维护 NNUE 第一层累加器。
+ * 颜色编号与 Board 一致：1 白，2 黑。
+ */
+public class BitBoard {
+
+	public static final int EMPTY = 0;
+	public static final int WHITE = 1;
+	public static final int BLACK = 2;
+
+	// collectThreatCells 的棋型种类
+	public static final int FIVE = 0;          // 落子即成五的点
+	public static final int FOUR = 1;          // 落子后成四（出现成五点）的点
+	public static final int THREE = 2;         // 落子后成活三（下一步可成活四）的点
+	public static final int THREE_DEFENSE = 3; // 已有活三的全部防守点（缺口与两端）
+
+	// Zobrist 随机键：ZOBRIST[颜色][格子编号]，固定种子保证每次运行键值相同
+	private static final int MAX_SIZE = 31;
+	private static final long[][] ZOBRIST = new long[3][MAX_SIZE * MAX_SIZE];
+	// 轮到黑棋时额外异或的键
+	public static final long SIDE_KEY;
+
+	static {
+		java.util.SplittableRandom random = new java.util.SplittableRandom(2411292L);
+		for (int color = WHITE; color <= BLACK; color++) {
+			for (int i = 0; i < ZOBRIST[color].length; i++) {
+				ZOBRIST[color][i] = random.nextLong();
+			}
+		}
+		SIDE_KEY = random.nextLong();
+	}
+
+	private final int size;
+	private final int lineCount; // 对角线方向的线数 = 2n-1
+
+	// 下标 0 不使用，直接用颜色编号索引
+	private final int[][] rows;
+	private final int[][] cols;
+	private final int[][] diags;
+	private final int[][] antiDiags;
+
+	private int stoneCount = 0;
+	private long hash = 0L;
+
+	// neighbours[格子编号] = 8 邻域内的棋子数（引用计数）
+	private final byte[] neighbours;
+	// 候选落子位集合：candidateRows[行] 的第 c 位表示 (行, c) 为空且邻域内有棋子
+	private final int[] candidateRows;
+	private int candidateCount = 0;
+
+	// 线编号：行 [0,n)，列 [n,2n)，对角线 [2n,2n+L)，反对角线 [2n+L,2n+2L)
+	// lineScores[颜色][回合][线编号]，回合 1 表示轮到该颜色
+	private final int[][][] lineScores;
+	// 各颜色、各回合下所有线得分之和
+	private final int[][] totalScores = new int[3][2];
+
+	// NNUE 第一层累加器，未启用神经网络评估时为 null
+	private Nnue.Accumulator accumulator;
+
+	public BitBoard(int size) {
+		if (size < 5 || size > MAX_SIZE) throw new IllegalArgumentException("棋盘大小必须在 5~31 之间: " + size);
+		this.size = size;
+		this.lineCount = 2 * size - 1;
+		rows = new int[3][size];
+		cols = new int[3][size];
+		diags = new int[3][lineCount];
+		antiDiags = new int[3][lineCount];
+		lineScores = new int[3][2][2 * size + 2 * lineCount];
+		neighbours = new byte[size * size];
+		candidateRows = new int[size];
+	}
+
+	/** 从棋盘矩阵构造（matrix[行][列]，0 空 1 白 2 黑） */
+	public BitBoard(int[][] matrix) {
+		this(matrix.length);
+		for (int r = 0; r < size; r++) {
+			for (int c = 0; c < size; c++) {
+				if (matrix[r][c] != EMPTY) place(r, c, matrix[r][c]);
+			}
+		}
+	}
+
+	public BitBoard(Board board) {
+		this(board.getBoardMatrix());
+	}
+
+	/** 拷贝构造函数 */
+	public BitBoard(BitBoard other) {
+		this(other.size);
+		for (int color = WHITE; color <= BLACK; color++) {
+			System.arraycopy(other.rows[color], 0, rows[color], 0, size);
+			System.arraycopy(other.cols[color], 0, cols[color], 0, size);
+			System.arraycopy(other.diags[color], 0, diags[color], 0, lineCount);
+			System.arraycopy(other.antiDiags[color], 0, antiDiags[color], 0, lineCount);
+			for (int turn = 0; turn < 2; turn++) {
+				System.arraycopy(other.lineScores[color][turn], 0, lineScores[color][turn], 0, lineScores[color][turn].length);
+				totalScores[color][turn] = other.totalScores[color][turn];
+			}
+		}
+		stoneCount = other.stoneCount;
+		hash = other.hash;
+		System.arraycopy(other.neighbours, 0, neighbours, 0, neighbours.length);
+		System.arraycopy(other.candidateRows, 0, candidateRows, 0, size);
+		candidateCount = other.candidateCount;
+		if (other.accumulator != null) accumulator = new Nnue.Accumulator(other.accumulator);
+	}
+
+	public int getSize() {
+		return size;
+	}
+
+	public int getStoneCount() {
+		return stoneCount;
+	}
+
+	/** 当前局面（仅棋子，不含轮次）的 Zobrist 哈希 */
+	public long getHash() {
+		return hash;
+	}
+
+	/** 启用神经网络评估并按当前棋子初始化累加器；传入 null 关闭 */
+	public void setNnue(Nnue net) {
+		if (net == null) {
+			accumulator = null;
+			return;
+		}
+		if (net.getBoardSize() != size) throw new IllegalArgumentException("神经网络的棋盘大小不符: " + net.getBoardSize());
+		accumulator = net.newAccumulator();
+		accumulator.refresh(this);
+	}
+
+	// 神经网络评估的累加器，未启用时为 null
+	Nnue.Accumulator getAccumulator() {
+		return accumulator;
+	}
+
+	// 单个棋子的 Zobrist 键，供开局库按对称变换重新计算局面键
+	static long zobristKey(int color, int cell) {
+		return ZOBRIST[color][cell];
+	}
+
+	public int get(int row, int col) {
+		int bit = 1 << col;
+		if ((rows[WHITE][row] & bit) != 0) return WHITE;
+		if ((rows[BLACK][row] & bit) != 0) return BLACK;
+		return EMPTY;
+	}
+
+	public boolean isEmpty(int row, int col) {
+		return ((rows[WHITE][row] | rows[BLACK][row]) & (1 << col)) == 0;
+	}
+
+	// 落子：同时更新四个方向的位集合，并重算经过该格的四条线
+	public void place(int row, int col, int color) {
+		if (accumulator != null) accumulateWindows(row, col, -1);
+		rows[color][row] |= 1 << col;
+		cols[color][col] |= 1 << row;
+		diags[color][diagIndex(row, col)] |= 1 << Math.min(row, col);
+		antiDiags[color][row + col] |= 1 << antiDiagBit(row, col);
+		stoneCount++;
+		hash ^= ZOBRIST[color][row * size + col];
+		updateLines(row, col);
+		if (accumulator != null) {
+			accumulateWindows(row, col, 1);
+			accumulator.stone(color, row * size + col, 1);
+		}
+
+		// 该格不再是候选；邻格计数加一，从 0 变 1 的空格成为候选
+		clearCandidate(row, col);
+		int r1 = Math.min(size - 1, row + 1);
+		int c1 = Math.min(size - 1, col + 1);
+		for (int r = Math.max(0, row - 1); r <= r1; r++) {
+			for (int c = Math.max(0, col - 1); c <= c1; c++) {
+				if (r == row && c == col) continue;
+				if (++neighbours[r * size + c] == 1 && isEmpty(r, c)) setCandidate(r, c);
+			}
+		}
+	}
+
+	// 提子：place 的逆操作
+	public void remove(int row, int col) {
+		int color = get(row, col);
+		if (color == EMPTY) return;
+		if (accumulator != null) {
+			accumulator.stone(color, row * size + col, -1);
+			accumulateWindows(row, col, -1);
+		}
+		rows[color][row] &= ~(1 << col);
+		cols[color][col] &= ~(1 << row);
+		diags[color][diagIndex(row, col)] &= ~(1 << Math.min(row, col));
+		antiDiags[color][row + col] &= ~(1 << antiDiagBit(row, col));
+		stoneCount--;
+		hash ^= ZOBRIST[color][row * size + col];
+		updateLines(row, col);
+		if (accumulator != null) accumulateWindows(row, col, 1);
+
+		// 邻格计数减一，变回 0 的移出候选；该格重新成为空位，邻域有子时加入候选
+		int r1 = Math.min(size - 1, row + 1);
+		int c1 = Math.min(size - 1, col + 1);
+		for (int r = Math.max(0, row - 1); r <= r1; r++) {
+			for (int c = Math.max(0, col - 1); c <= c1; c++) {
+				if (r == row && c == col) continue;
+				if (--neighbours[r * size + c] == 0) clearCandidate(r, c);
+			}
+		}
+		if (neighbours[row * size + col] > 0) setCandidate(row, col);
+	}
+
+	private void setCandidate(int row, int col) {
+		int bit = 1 << col;
+		if ((candidateRows[row] & bit) == 0) {
+			candidateRows[row] |= bit;
+			candidateCount++;
+		}
+	}
+
+	private void clearCandidate(int row, int col) {
+		int bit = 1 << col;
+		if ((candidateRows[row] & bit) != 0) {
+			candidateRows[row] &= ~bit;
+			candidateCount--;
+		}
+	}
+
+	private void updateLines(int row, int col) {
+		int d = diagIndex(row, col);
+		int a = row + col;
+		updateLine(row, rows, row, size);
+		updateLine(size + col, cols, col, size);
+		updateLine(2 * size + d, diags, d, diagLength(d));
+		updateLine(2 * size + lineCount + a, antiDiags, a, diagLength(a));
+	}
+
+	// 重算一条线上双方、两种回合下的得分，并把差值累加到总分
+	private void updateLine(int lineId, int[][] masks, int index, int len) {
+		int white = masks[WHITE][index];
+		int black = masks[BLACK][index];
+		long whitePair = lineScorePair(white, black, len);
+		long blackPair = lineScorePair(black, white, len);
+		for (int turn = 0; turn < 2; turn++) {
+			int w = (int) (whitePair >>> (32 * turn));
+			int b = (int) (blackPair >>> (32 * turn));
+			totalScores[WHITE][turn] += w - lineScores[WHITE][turn][lineId];
+			totalScores[BLACK][turn] += b - lineScores[BLACK][turn][lineId];
+			lineScores[WHITE][turn][lineId] = w;
+			lineScores[BLACK][turn][lineId] = b;
+		}
+	}
+
+	// 经过 (row, col) 的全部五格窗口加入(sign>0)或移出累加器；落子/提子前移出、之后重新加入
+	private void accumulateWindows(int row, int col, int sign) {
+		int d = diagIndex(row, col);
+		int a = row + col;
+		accumulateLine(rows, row, col, size, sign);
+		accumulateLine(cols, col, row, size, sign);
+		accumulateLine(diags, d, Math.min(row, col), diagLength(d), sign);
+		accumulateLine(antiDiags, a, antiDiagBit(row, col), diagLength(a), sign);
+	}
+
+	private void accumulateLine(int[][] masks, int index, int bit, int len, int sign) {
+		int white = masks[WHITE][index];
+		int black = masks[BLACK][index];
+		int last = Math.min(bit, len - 5);
+		for (int start = Math.max(0, bit - 4); start <= last; start++) {
+			accumulator.window((white >>> start) & 31, (black >>> start) & 31, sign);
+		}
+	}
+
+	private int diagIndex(int row, int col) {
+		return col - row + size - 1;
+	}
+
+	private int antiDiagBit(int row, int col) {
+		return row - Math.max(0, row + col - (size - 1));
+	}
+
+	// 第 k 条对角线（两个方向相同）的长度
+	private int diagLength(int k) {
+		return size - Math.abs(k - (size - 1));
+	}
+
+	/**
+	 * 生成候选落子：与已有棋子相邻（8 邻域）的空位，按行优先写入 out（格子编号 行*n+列）。
+	 * 候选集合在落子/提子时增量维护，这里只遍历候选位，不分配内存。
+	 * out 的长度至少为 getCandidateCount()（或 n*n），返回写入的个数。
+	 */
+	public int generateMoves(int[] out) {
+		int count = 0;
+		for (int r = 0; r < size; r++) {
+			int bits = candidateRows[r];
+			while (bits != 0) {
+				out[count++] = r * size + Integer.numberOfTrailingZeros(bits);
+				bits &= bits - 1;
+			}
+		}
+		return count;
+	}
+
+	/** 同 generateMoves(int[])，返回新分配的数组，供搜索以外的场合使用 */
+	public int[] generateMoves() {
+		int[] moves = new int[candidateCount];
+		generateMoves(moves);
+		return moves;
+	}
+
+	public int getCandidateCount() {
+		return candidateCount;
+	}
+
+	/**
+	 * 在 (row, col) 落下 color 一子后，该子所在四条线上 color 方得分的增量（按轮到该方计分）。
+	 * 用于着法排序：对己方是进攻价值（成五、成四、活三），对对手是防守价值（堵点）。
+	 * 每条线的增量以 cap 为上限，避免长连等极端分值溢出。
+	 */
+	public int moveGain(int row, int col, int color, int cap) {
+		int opp = color == WHITE ? BLACK : WHITE;
+		int d = diagIndex(row, col);
+		int a = row + col;
+		int gain = 0;
+		gain += lineGain(rows[color][row], rows[opp][row], 1 << col, size, cap);
+		gain += lineGain(cols[color][col], cols[opp][col], 1 << row, size, cap);
+		gain += lineGain(diags[color][d], diags[opp][d], 1 << Math.min(row, col), diagLength(d), cap);
+		gain += lineGain(antiDiags[color][a], antiDiags[opp][a], 1 << antiDiagBit(row, col), diagLength(a), cap);
+		return gain;
+	}
+
+	private static int lineGain(int own, int opp, int bit, int len, int cap) {
+		int delta = lineScore(own | bit, opp, len, true) - lineScore(own, opp, len, true);
+		return Math.min(delta, cap);
+	}
+
+	/**
+	 * 收集 color 方某种棋型的全部空位，结果写入 out（out[行] 的第 c 位表示 (行, c)），返回空位个数。
+	 * 逐条线用 5 格/6 格窗口判断：
+	 * - FIVE：5 格窗口内 4 子 + 1 空，无对方棋子
+	 * - FOUR：5 格窗口内 3 子 + 2 空，无对方棋子
+	 * - THREE：6 格窗口两端为空、中间 4 格 2 子 + 2 空
+	 * - THREE_DEFENSE：6 格窗口两端为空、中间 4 格 3 子 + 1 空，窗口内所有空位
+	 */
+	public int collectThreatCells(int color, int kind, int[] out) {
+		int opp = color == WHITE ? BLACK : WHITE;
+		java.util.Arrays.fill(out, 0, size, 0);
+		for (int i = 0; i < size; i++) {
+			out[i] |= lineThreatCells(rows[color][i], rows[opp][i], size, kind);
+			int bits = lineThreatCells(cols[color][i], cols[opp][i], size, kind);
+			while (bits != 0) {
+				int r = Integer.numberOfTrailingZeros(bits);
+				out[r] |= 1 << i;
+				bits &= bits - 1;
+			}
+		}
+		for (int k = 0; k < lineCount; k++) {
+			int len = diagLength(k);
+			int bits = lineThreatCells(diags[color][k], diags[opp][k], len, kind);
+			while (bits != 0) {
+				int b = Integer.numberOfTrailingZeros(bits);
+				// 对角线 k = 列-行+n-1，第 b 位为 min(行, 列)
+				if (k >= size - 1) out[b] |= 1 << (b + k - (size - 1));
+				else out[b + (size - 1 - k)] |= 1 << b;
+				bits &= bits - 1;
+			}
+			bits = lineThreatCells(antiDiags[color][k], antiDiags[opp][k], len, kind);
+			while (bits != 0) {
+				int r = Integer.numberOfTrailingZeros(bits) + Math.max(0, k - (size - 1));
+				out[r] |= 1 << (k - r);
+				bits &= bits - 1;
+			}
+		}
+		int count = 0;
+		for (int i = 0; i < size; i++) count += Integer.bitCount(out[i]);
+		return count;
+	}
+
+	static int lineThreatCells(int own, int opp, int len, int kind) {
+		int result = 0;
+		if (kind == FIVE || kind == FOUR) {
+			int need = kind == FIVE ? 4 : 3;
+			for (int s = 0; s + 5 <= len; s++) {
+				int w = 0x1F << s;
+				if ((opp & w) == 0 && Integer.bitCount(own & w) == need) result |= w & ~own;
+			}
+		} else {
+			int need = kind == THREE ? 2 : 3;
+			for (int s = 0; s + 6 <= len; s++) {
+				int w = 0x3F << s;
+				int inner = 0x1E << s;
+				if ((opp & w) == 0 && (own & w & ~inner) == 0 && Integer.bitCount(own & inner) == need) {
+					result |= (kind == THREE ? inner : w) & ~own;
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * 指定玩家的棋盘得分，与 Minimax.getScore 的结果完全一致。
+	 * forBlack: 为哪一方计分, blacksTurn: 当前是否轮到黑棋
+	 * 直接读取增量维护的总分，O(1)。
+	 */
+	public int getScore(boolean forBlack, boolean blacksTurn) {
+		return totalScores[forBlack ? BLACK : WHITE][forBlack == blacksTurn ? 1 : 0];
+	}
+
+	// 查表计分的最长分段；更长的分段（棋盘大于 15 时才会出现）逐串计算
+	private static final int TABLE_MAX_LEN = 15;
+	// SEGMENT_SCORES[回合][己方位掩码 | (1 << 段长)]：两端被阻挡（对手或边缘）的一段上己方所有连子串的得分
+	private static final int[][] SEGMENT_SCORES = new int[2][1 << (TABLE_MAX_LEN + 1)];
+
+	static {
+		for (int len = 1; len <= TABLE_MAX_LEN; len++) {
+			for (int own = 0; own < (1 << len); own++) {
+				SEGMENT_SCORES[0][own | (1 << len)] = runScore(own, 0, len, false);
+				SEGMENT_SCORES[1][own | (1 << len)] = runScore(own, 0, len, true);
+			}
+		}
+	}
+
+	/**
+	 * 计算一条线上所有连子串的得分。
+	 * own/opp: 双方在该线上的位掩码, len: 线长
+	 * 对手棋子把线切成若干段，每段两端都是阻碍（对手或边缘），段内连子串的得分只取决于
+	 * 己方棋子的分布与段长，因此每段只需一次查表（SEGMENT_SCORES，类加载时生成）。
+	 */
+	static int lineScore(int own, int opp, int len, boolean currentTurn) {
+		int[] table = SEGMENT_SCORES[currentTurn ? 1 : 0];
+		int score = 0;
+		int free = ~opp & (int) ((1L << len) - 1);
+		while (free != 0) {
+			int start = Integer.numberOfTrailingZeros(free);
+			int segLen = Integer.numberOfTrailingZeros(~(free >>> start));
+			int segMask = (int) ((1L << segLen) - 1);
+			int segOwn = (own >>> start) & segMask;
+			if (segOwn != 0) {
+				score += segLen <= TABLE_MAX_LEN ? table[segOwn | (1 << segLen)] : runScore(segOwn, 0, segLen, currentTurn);
+			}
+			free &= ~(segMask << start);
+		}
+		return score;
+	}
+
+	// 同时计算两种回合下的线得分，只切分一次：低 32 位为非己方回合，高 32 位为己方回合
+	private static long lineScorePair(int own, int opp, int len) {
+		int score0 = 0;
+		int score1 = 0;
+		int free = ~opp & (int) ((1L << len) - 1);
+		while (free != 0) {
+			int start = Integer.numberOfTrailingZeros(free);
+			int segLen = Integer.numberOfTrailingZeros(~(free >>> start));
+			int segMask = (int) ((1L << segLen) - 1);
+			int segOwn = (own >>> start) & segMask;
+			if (segOwn != 0) {
+				if (segLen <= TABLE_MAX_LEN) {
+					int index = segOwn | (1 << segLen);
+					score0 += SEGMENT_SCORES[0][index];
+					score1 += SEGMENT_SCORES[1][index];
+				} else {
+					score0 += runScore(segOwn, 0, segLen, false);
+					score1 += runScore(segOwn, 0, segLen, true);
+				}
+			}
+			free &= ~(segMask << start);
+		}
+		return ((long) score1 << 32) | (score0 & 0xFFFFFFFFL);
+	}
+
+	/**
+	 * 逐个连子串计分（生成查找表及超长分段时使用）。
+	 * 每个连子串的阻碍数 = 2 - 两端空位数（棋盘边缘与对手棋子同样视为阻碍）。
+	 */
+	private static int runScore(int own, int opp, int len, boolean currentTurn) {
+		int score = 0;
+		int rest = own;
+		while (rest != 0) {
+			int start = Integer.numberOfTrailingZeros(rest);
+			int count = Integer.numberOfTrailingZeros(~(rest >>> start));
+			int end = start + count;
+			int blocks = 2;
+			if (start > 0 && (opp & (1 << (start - 1))) == 0) blocks--;
+			if (end < len && (opp & (1 << end)) == 0) blocks--;
+			score += Minimax.getConsecutiveSetScore(count, blocks, currentTurn);
+			// 清除已结算的连子串
+			rest &= ~(((1 << count) - 1) << start);
+		}
+		return score;
+	}
+}
@@ -144,6 +144,44 @@ public class Board {
 		return true;
 	}
 
+	// 四个方向：横、竖、主对角线、副对角线
+	private static final int[][] DIRECTIONS = {{1, 0}, {0, 1}, {1, 1}, {1, -1}};
+
+	/**
+	 * 胜负判断：只检查经过 (posX, posY) 的四条线，判断该处的棋子是否连成五子。
+	 * 与评估函数一致，长连（五子以上）同样算胜。
+	 * 返回包含该子的五个连续棋子的坐标 {{x, y}, ...}，没有连成五子时返回 null。
+	 */
+	public int[][] findFive(int posX, int posY) {
+		int n = boardMatrix.length;
+		if(posX < 0 || posY < 0 || posX >= n || posY >= n) return null;
+		int color = boardMatrix[posY][posX];
+		if(color == 0) return null;
+
+		for(int[] d : DIRECTIONS) {
+			// 向两侧数同色连子
+			int back = 0;
+			while(isColor(posX - (back + 1) * d[0], posY - (back + 1) * d[1], color)) back++;
+			int forward = 0;
+			while(isColor(posX + (forward + 1) * d[0], posY + (forward + 1) * d[1], color)) forward++;
+			if(back + forward + 1 >= 5) {
+				int start = Math.min(back, 4);
+				int[][] five = new int[5][2];
+				for(int i = 0; i < 5; i++) {
+					five[i][0] = posX + (i - start) * d[0];
+					five[i][1] = posY + (i - start) * d[1];
+				}
+				return five;
+			}
+		}
+		return null;
+	}
+
+	private boolean isColor(int posX, int posY, int color) {
+		int n = boardMatrix.length;
+		return posX >= 0 && posY >= 0 && posX < n && posY < n && boardMatrix[posY][posX] == color;
+	}
+
 	// 生成所有可能的移动（优化 AI 搜索范围）
 	public ArrayList<int[]> generateMoves() {
 		ArrayList<int[]> moveList = new ArrayList<int[]>();
@@ -0,0 +1,41 @@
+/**
+ * AI 引擎的公共接口：GameController 通过它调用 Minimax（alpha-beta）或 MctsEngine（蒙特卡洛树搜索）。
+ * - search：可重入的无状态入口，输入不可变的局面快照，返回 SearchResult；可被多个线程同时调用
+ * - calculateNextMove：对局用的入口，为引擎绑定的 Board 上的 AI（白棋）走一步，返回 {行(y), 列(x)}，
+ *   没有可下的位置时返回 null；结果同时记录在 getLast* 中
+ * 引擎不发送界面通知，thinkingStarted/Finished 由调用方负责。
+ */
+public interface Engine {
+
+	SearchResult search(Position position, SearchLimit limit);
+
+	int[] calculateNextMove(SearchLimit limit);
+
+	// 上一次搜索达到的深度（alpha-beta 为完整迭代深度，MCTS 为树的最大深度）
+	int getLastDepth();
+
+	// 上一次搜索访问的节点数（MCTS 为模拟次数），用于统计每秒节点数
+	default long getLastNodeCount() {
+		return 0;
+	}
+
+	// 上一次搜索的统计数据，随着法一起返回，供界面显示与对局导出读取
+	default SearchStats getLastStats() {
+		return SearchStats.EMPTY;
+	}
+
+	void setThreads(int threads);
+
+	int getThreads();
+
+	// 后台思考，不支持的引擎可忽略
+	default void startPondering(SearchLimit limit) {
+	}
+
+	default void cancelPondering() {
+	}
+
+	// 释放引擎占用的线程等资源，之后不再使用该引擎
+	default void close() {
+	}
+}
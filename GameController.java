@@ -33,13 +33,17 @@ public class GameController {
 	}
 
 	private final Board board;
-	private final Minimax ai;
+	private final Minimax minimax;
+	private MctsEngine mcts; // 首次选择 MCTS 难度时创建
+	private Engine ai; // 当前使用的引擎
 
 	private UIHook ui;
 
 	private boolean isPlayersTurn = true;
 	private boolean gameFinished = false;
-	private int minimaxDepth = 3;//ai难度设置，默认深度为3
+	private SearchLimit aiLimit = SearchLimit.depth(3);//ai难度设置，默认深度为3
+	private SearchStats lastAIStats = SearchStats.EMPTY; // AI 上一步的搜索统计（深度、节点数等）
+	private boolean pondering = true; // 玩家思考期间 AI 是否在后台预先思考
 	private boolean aiStarts = false; // 默认：玩家先手
 	private int winner = 0; // 0 无, 1 AI 胜, 2 玩家胜
 
@@ -49,7 +53,10 @@ public class GameController {
 
 	public GameController(Board board) {
 		this.board = board;
-		this.ai = new Minimax(board);
+		this.minimax = new Minimax(board);
+		// Lazy SMP：使用全部 CPU 核心搜索
+		this.minimax.setThreads(Runtime.getRuntime().availableProcessors());
+		this.ai = minimax;
 	}
 
 	public void setUIHook(UIHook hook) {
@@ -57,8 +64,52 @@ public class GameController {
 	}
 
 	public void setAIDepth(int depth) {
-		this.minimaxDepth = Math.max(1, depth);
-		if (ui != null) ui.appendSystemMessage("AI 难度已设置：深度=" + this.minimaxDepth);
+		useEngine(minimax);
+		this.aiLimit = SearchLimit.depth(depth);
+		if (ui != null) ui.appendSystemMessage("AI 难度已设置：" + aiLimit);
+		restartPondering();
+	}
+
+	// 按时间设置难度：AI 迭代加深，在限定时间内返回最深一轮完整搜索的结果
+	public void setAITimeLimit(long millis) {
+		useEngine(minimax);
+		this.aiLimit = SearchLimit.time(millis);
+		if (ui != null) ui.appendSystemMessage("AI 难度已设置：" + aiLimit);
+		restartPondering();
+	}
+
+	// 切换到蒙特卡洛树搜索引擎，在限定时间内模拟后选访问次数最多的着法
+	public void setMctsTimeLimit(long millis) {
+		if (mcts == null) {
+			mcts = new MctsEngine(board);
+			mcts.setThreads(minimax.getThreads());
+		}
+		useEngine(mcts);
+		this.aiLimit = SearchLimit.time(millis);
+		if (ui != null) ui.appendSystemMessage("AI 难度已设置：MCTS " + aiLimit);
+		restartPondering();
+	}
+
+	// 切换引擎前停止旧引擎的后台思考
+	private synchronized void useEngine(Engine engine) {
+		if (ai != engine) {
+			ai.cancelPondering();
+			ai = engine;
+		}
+	}
+
+	// 开关后台思考：玩家思考期间 AI 预先计算最可能的几步落子的应对
+	public void setPondering(boolean enabled) {
+		this.pondering = enabled;
+		if (ui != null) ui.appendSystemMessage("AI 后台思考：" + (enabled ? "开启" : "关闭"));
+		restartPondering();
+	}
+
+	// 设置 AI 搜索线程数
+	public void setAIThreads(int threads) {
+		minimax.setThreads(threads);
+		if (mcts != null) mcts.setThreads(threads);
+		if (ui != null) ui.appendSystemMessage("AI 搜索线程数：" + ai.getThreads());
 	}
 
 	public void setAIStarts(boolean aiStarts) {
@@ -73,6 +124,11 @@ public class GameController {
 		return replayIndex != history.size();
 	}//是否处在复盘模式
 
+	// AI 上一步的搜索统计，新开局后为 SearchStats.EMPTY
+	public synchronized SearchStats getLastAIStats() {
+		return lastAIStats;
+	}
+
 	/** 启动控制器（仅调用一次） */
 	public void start() {
 		newGame();
@@ -80,21 +136,24 @@ public class GameController {
 
 	/** 开始新回合 */
 	public synchronized void newGame() {
+		ai.cancelPondering();
 		board.reset();
 		history.clear();
 		replayIndex = 0;
 		winner = 0;
 		gameFinished = false;
 		isPlayersTurn = true;
+		lastAIStats = SearchStats.EMPTY;
 		if (ui != null) ui.appendSystemMessage("开始新游戏！");
 		// 可选：AI 先手（白棋）
 		if (aiStarts) {
 			isPlayersTurn = false;
-			// 在中心位置落第一子
-			int c = board.getBoardSize() / 2;
-			playMove(c, c, false);
+			// 第一子由 AI 决定（开局库或棋盘中心），空棋盘上不需要搜索
+			int[] mv = ai.calculateNextMove(aiLimit);
+			playMove(mv[1], mv[0], false);
 			finishMoveAndSyncReplay();
 			isPlayersTurn = true;
+			restartPondering();
 		}
 
 		updateStatus();
@@ -105,6 +164,7 @@ public class GameController {
 		if (history.isEmpty()) return false;
 		// 复盘模式下不允许悔棋
 		if (isReviewMode()) return false;
+		ai.cancelPondering();
 
 		// 移除最后一步（通常是 AI 或玩家）
 		removeLastMove();
@@ -117,6 +177,7 @@ public class GameController {
 
 		rebuildBoardFromHistory(history.size());
 		replayIndex = history.size();//复盘索引
+		restartPondering();
 		updateStatus();
 		return true;
 	}
@@ -174,7 +235,7 @@ public class GameController {
 			}
 			finishMoveAndSyncReplay();
 
-			winner = checkWinner();
+			winner = checkWinner(x, y);
 			if (winner == 2) {
 				board.printWinner(winner);
 				gameFinished = true;
@@ -188,13 +249,16 @@ public class GameController {
 		}
 
 		// AI 在后台线程计算，防止 UI 卡死
+		Engine engine = ai;
+		SearchLimit limit = aiLimit;
 		Thread aiThread = new Thread(() -> {
 			board.thinkingStarted();
-			int[] mv = ai.calculateNextMove(minimaxDepth);
+			int[] mv = engine.calculateNextMove(limit);
 			board.thinkingFinished();
 
 			synchronized (GameController.this) {
 				if (gameFinished) return;
+				lastAIStats = engine.getLastStats();
 				if (mv == null) {//ai没有找到落子位置（棋子全满）
 					board.printWinner(0);
 					gameFinished = true;
@@ -207,7 +271,7 @@ public class GameController {
 				playMove(aiX, aiY, false);
 				finishMoveAndSyncReplay();
 
-				winner = checkWinner();
+				winner = checkWinner(aiX, aiY);
 				if (winner == 1) {
 					board.printWinner(winner);
 					gameFinished = true;
@@ -223,12 +287,22 @@ public class GameController {
 				}
 
 				isPlayersTurn = true;
+				restartPondering();
 				updateStatus();
 			}
 		});
 		aiThread.start();
 	}
 
+	// 轮到玩家时（重新）开始后台思考，否则停止并丢弃旧结果
+	private synchronized void restartPondering() {
+		if (pondering && isPlayersTurn && !gameFinished && !isReviewMode()) {
+			ai.startPondering(aiLimit);
+		} else {
+			ai.cancelPondering();
+		}
+	}
+
 	private boolean playMove(int x, int y, boolean black) {
 		boolean ok = board.addStone(x, y, black);
 		if (!ok) return false;
@@ -240,11 +314,20 @@ public class GameController {
 		replayIndex = history.size();
 	}
 
-	private int checkWinner() {
-		// 在本项目中，黑棋/玩家使用 getScore(..., true, ...) 进行判断
-		if (Minimax.getScore(board, true, false) >= Minimax.getWinScore()) return 2;
-		if (Minimax.getScore(board, false, true) >= Minimax.getWinScore()) return 1;
-		return 0;
+	// 只检查经过最后一步 (x, y) 的四条线：黑棋(玩家)成五返回 2，白棋(AI)成五返回 1，否则 0
+	private int checkWinner(int x, int y) {
+		int[][] five = board.findFive(x, y);
+		if (five == null) return 0;
+		if (ui != null) ui.appendSystemMessage("五子连珠：" + formatFive(five));
+		return board.getBoardMatrix()[y][x] == 2 ? 2 : 1;
+	}
+
+	static String formatFive(int[][] five) {
+		StringBuilder sb = new StringBuilder();
+		for (int[] p : five) {
+			sb.append("(").append(p[0] + 1).append(",").append((char) ('A' + p[1])).append(")");
+		}
+		return sb.toString();
 	}
 //用于悔棋或复盘后的重绘棋盘
 	private void rebuildBoardFromHistory(int upto) {
@@ -270,7 +353,10 @@ public class GameController {
 			return;
 		}
 
-		ui.setStatusText("状态：轮到：" + (isPlayersTurn ? "黑棋(玩家)" : "白棋(AI)"));
+		SearchStats stats = lastAIStats;
+		String depthInfo = stats.getDepth() > 0 ? "  [AI 上一步搜索深度：" + stats.getDepth()
+				+ (stats.getNodes() > 0 ? "，节点数：" + stats.getNodes() + "，节点/秒：" + stats.getNodesPerSecond() : "") + "]" : "";
+		ui.setStatusText("状态：轮到：" + (isPlayersTurn ? "黑棋(玩家)" : "白棋(AI)") + depthInfo);
 	}
 }
 
@@ -114,7 +114,7 @@ public class GameView extends JFrame implements GameController.UIHook {
 		// 顶部控制按钮区
 		JPanel top = new JPanel(new BorderLayout());
 
-		JPanel aiRow = new JPanel(new GridLayout(2, 1, 0, 6));
+		JPanel aiRow = new JPanel(new GridLayout(3, 1, 0, 6));
 		aiRow.setBorder(BorderFactory.createEmptyBorder(0, 0, 8, 0));
 
 		// AI 难度设置
@@ -125,19 +125,28 @@ public class GameView extends JFrame implements GameController.UIHook {
 				"简单（深度1）",
 				"普通（深度3）",
 				"困难（深度4）",
-				"地狱（深度5）"
+				"地狱（深度5）",
+				"限时（1秒）",
+				"限时（3秒）",
+				"限时（10秒）",
+				"MCTS（限时3秒）",
+				"MCTS（限时10秒）"
 		};
 		JComboBox<String> cbDifficulty = new JComboBox<>(levels);
 		cbDifficulty.setSelectedIndex(1);
 		cbDifficulty.addActionListener(e -> {
 			int idx = cbDifficulty.getSelectedIndex();
-			int depth = switch (idx) {
-				case 0 -> 1;
-				case 1 -> 3;
-				case 2 -> 4;
-				default -> 5;
-			};
-			game.setAIDepth(depth);
+			switch (idx) {
+				case 0 -> game.setAIDepth(1);
+				case 1 -> game.setAIDepth(3);
+				case 2 -> game.setAIDepth(4);
+				case 3 -> game.setAIDepth(5);
+				case 4 -> game.setAITimeLimit(1000);
+				case 5 -> game.setAITimeLimit(3000);
+				case 6 -> game.setAITimeLimit(10000);
+				case 7 -> game.setMctsTimeLimit(3000);
+				default -> game.setMctsTimeLimit(10000);
+			}
 			appendSystemMessage("AI难度已设置为：" + levels[idx]);
 		});
 		difficultyRow.add(cbDifficulty, BorderLayout.CENTER);
@@ -157,8 +166,13 @@ public class GameView extends JFrame implements GameController.UIHook {
 		});
 		firstMoveRow.add(cbFirstMove, BorderLayout.CENTER);
 
+		// 后台思考：玩家思考期间 AI 预先计算应对
+		JCheckBox chkPonder = new JCheckBox("AI 后台思考", true);
+		chkPonder.addActionListener(e -> game.setPondering(chkPonder.isSelected()));
+
 		aiRow.add(difficultyRow);
 		aiRow.add(firstMoveRow);
+		aiRow.add(chkPonder);
 
 		JButton btnNew = new JButton("新开局");
 		JButton btnUndo = new JButton("悔棋");
@@ -0,0 +1,220 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Gomocup/Piskvork 棋手协议（标准输入/输出）适配器，无界面运行 Minimax，
+ * 可以接入本地的对战管理器，与其他引擎比较速度与棋力。
+ *
+ * 支持的命令：START、RECTSTART（仅正方形）、RESTART、BEGIN、TURN、BOARD…DONE、TAKEBACK、
+ * INFO（timeout_turn、timeout_match、time_left、max_memory，其余忽略）、ABOUT、END。
+ * 坐标为 "x,y"（x 为列，y 为行，从 0 开始）。
+ * 己方棋子在引擎内部记为白棋（引擎总是为白棋搜索），对方为黑棋。
+ *
+ * 时间：每步预算 = min(timeout_turn, time_left / MOVES_TO_GO) 的 80% 再减去安全余量；
+ *       timeout_turn 为 0 表示尽快落子。
+ * 内存：置换表使用 max_memory 的一半（0 表示不限，使用默认大小）。
+ * 标准输出只用于协议，引擎的其他输出被屏蔽。
+ *
+ * 用法：java GomocupBrain（管理器需要可执行文件时，用一个调用该命令的启动程序）
+ */
+public class GomocupBrain {
+
+	private static final String ABOUT = "name=\"Gomuku\", version=\"1.0\"";
+	private static final int MIN_SIZE = 5;
+	private static final int MAX_SIZE = 31; // BitBoard 每条线用一个 int 位掩码
+	private static final int MOVES_TO_GO = 20;
+	private static final long SAFETY_MILLIS = 30;
+	private static final long MIN_MOVE_MILLIS = 10;
+	// timeout_turn 为 0（尽快落子）时的预算
+	private static final long FAST_MOVE_MILLIS = 50;
+	// 未收到 INFO 时的默认值（毫秒）
+	private static final long DEFAULT_TIMEOUT_TURN = 5000;
+
+	private final PrintStream out;
+	private BitBoard board;
+	private Minimax engine;
+	private int engineHashMegabytes;
+
+	private long timeoutTurn = DEFAULT_TIMEOUT_TURN;
+	private long timeoutMatch = 0; // 0 表示整局不限时
+	private long timeLeft = Long.MAX_VALUE;
+	private long maxMemory = 0;    // 字节，0 表示不限
+
+	GomocupBrain(PrintStream out) {
+		this.out = out;
+	}
+
+	public static void main(String[] args) throws IOException {
+		PrintStream protocol = new PrintStream(System.out, true, StandardCharsets.UTF_8);
+		System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+		GomocupBrain brain = new GomocupBrain(protocol);
+		BufferedReader in = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+		String line;
+		while ((line = in.readLine()) != null) {
+			if (!brain.handle(line.trim(), in)) break;
+		}
+	}
+
+	// 处理一条命令，收到 END 时返回 false
+	boolean handle(String line, BufferedReader in) throws IOException {
+		if (line.isEmpty()) return true;
+		int space = line.indexOf(' ');
+		String command = (space < 0 ? line : line.substring(0, space)).toUpperCase();
+		String arg = space < 0 ? "" : line.substring(space + 1).trim();
+		try {
+			switch (command) {
+				case "START" -> start(Integer.parseInt(arg), Integer.parseInt(arg));
+				case "RECTSTART" -> {
+					String[] wh = arg.split(",");
+					start(Integer.parseInt(wh[0].trim()), Integer.parseInt(wh[1].trim()));
+				}
+				case "RESTART" -> {
+					if (requireBoard()) start(board.getSize(), board.getSize());
+				}
+				case "BEGIN" -> {
+					if (requireBoard()) think();
+				}
+				case "TURN" -> {
+					if (!requireBoard()) break;
+					int[] xy = parse(arg, 2);
+					if (!place(xy[0], xy[1], BitBoard.BLACK)) break;
+					think();
+				}
+				case "BOARD" -> {
+					if (!requireBoard()) break;
+					readBoard(in);
+				}
+				case "TAKEBACK" -> {
+					if (!requireBoard()) break;
+					int[] xy = parse(arg, 2);
+					if (!inside(xy[0], xy[1])) {
+						out.println("ERROR coordinates out of range");
+						break;
+					}
+					if (!board.isEmpty(xy[1], xy[0])) board.remove(xy[1], xy[0]);
+					out.println("OK");
+				}
+				case "INFO" -> info(arg);
+				case "ABOUT" -> out.println(ABOUT);
+				case "END" -> {
+					return false;
+				}
+				default -> out.println("UNKNOWN " + command);
+			}
+		} catch (RuntimeException e) {
+			out.println("ERROR " + line + ": " + e.getMessage());
+		}
+		return true;
+	}
+
+	private void start(int width, int height) {
+		if (width != height || width < MIN_SIZE || width > MAX_SIZE) {
+			out.println("ERROR unsupported size, only square boards " + MIN_SIZE + ".." + MAX_SIZE);
+			return;
+		}
+		board = new BitBoard(width);
+		out.println("OK");
+	}
+
+	private boolean requireBoard() {
+		if (board == null) out.println("ERROR send START first");
+		return board != null;
+	}
+
+	// BOARD 之后每行 "x,y,field"（1 己方、2 对方、3 连续对局的棋子，按对方处理），以 DONE 结束，随后落子
+	private void readBoard(BufferedReader in) throws IOException {
+		board = new BitBoard(board.getSize());
+		boolean valid = true;
+		String line;
+		while ((line = in.readLine()) != null) {
+			line = line.trim();
+			if (line.equalsIgnoreCase("DONE")) break;
+			if (line.isEmpty()) continue;
+			// 出错后仍读到 DONE 为止，避免把剩余的棋子行当作命令
+			try {
+				int[] v = parse(line, 3);
+				valid &= place(v[0], v[1], v[2] == 1 ? BitBoard.WHITE : BitBoard.BLACK);
+			} catch (RuntimeException e) {
+				out.println("ERROR " + line + ": " + e.getMessage());
+				valid = false;
+			}
+		}
+		if (valid) think();
+	}
+
+	// INFO 的时间单位为毫秒，max_memory 为字节
+	private void info(String arg) {
+		String[] kv = arg.split("\\s+", 2);
+		if (kv.length < 2) return;
+		switch (kv[0].toLowerCase()) {
+			case "timeout_turn" -> timeoutTurn = Long.parseLong(kv[1]);
+			case "timeout_match" -> timeoutMatch = Long.parseLong(kv[1]);
+			case "time_left" -> timeLeft = Long.parseLong(kv[1]);
+			case "max_memory" -> maxMemory = Long.parseLong(kv[1]);
+			default -> {
+				// game_type、rule、evaluate、folder 等不影响搜索
+			}
+		}
+	}
+
+	private boolean place(int x, int y, int color) {
+		if (!inside(x, y) || !board.isEmpty(y, x)) {
+			out.println("ERROR invalid move " + x + "," + y);
+			return false;
+		}
+		board.place(y, x, color);
+		return true;
+	}
+
+	private boolean inside(int x, int y) {
+		int n = board.getSize();
+		return x >= 0 && y >= 0 && x < n && y < n;
+	}
+
+	private void think() {
+		SearchResult result = engine().search(Position.of(board, BitBoard.WHITE), SearchLimit.time(moveBudget()));
+		if (!result.hasMove()) {
+			out.println("ERROR no empty cell left");
+			return;
+		}
+		int[] move = result.getMove();
+		board.place(move[0], move[1], BitBoard.WHITE);
+		SearchStats stats = result.getStats();
+		out.println("MESSAGE depth " + result.getDepth() + " score " + result.getScore() + " nodes " + stats.getNodes()
+				+ " nps " + stats.getNodesPerSecond() + " time " + stats.getElapsedMillis() + "ms");
+		out.println(move[1] + "," + move[0]);
+	}
+
+	// 本步的时间预算（毫秒）
+	long moveBudget() {
+		long turn = timeoutTurn == 0 ? FAST_MOVE_MILLIS : timeoutTurn;
+		if (timeoutMatch > 0 && timeLeft != Long.MAX_VALUE) turn = Math.min(turn, timeLeft / MOVES_TO_GO);
+		return Math.max(MIN_MOVE_MILLIS, turn * 8 / 10 - SAFETY_MILLIS);
+	}
+
+	// 按 max_memory 建立（或重建）引擎：置换表用可用内存的一半
+	private Minimax engine() {
+		int megabytes = maxMemory <= 0 ? Minimax.DEFAULT_HASH_MB
+				: (int) Math.max(1, Math.min(Minimax.DEFAULT_HASH_MB * 8L, (maxMemory / 2) >> 20));
+		if (engine == null) {
+			engine = new Minimax(new Board(board.getSize()), megabytes);
+			engine.setThreads(1);
+		} else if (megabytes != engineHashMegabytes) {
+			engine.setHashSize(megabytes);
+		}
+		engineHashMegabytes = megabytes;
+		return engine;
+	}
+
+	private static int[] parse(String text, int count) {
+		String[] parts = text.split(",");
+		if (parts.length < count) throw new IllegalArgumentException("malformed coordinates");
+		int[] values = new int[count];
+		for (int i = 0; i < count; i++) values[i] = Integer.parseInt(parts[i].trim());
+		return values;
+	}
+}
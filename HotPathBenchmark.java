@@ -0,0 +1,256 @@
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * 热点路径微基准：在固定的局面集（开局到残局）上测量棋盘、评估与搜索的耗时，
+ * 性能相关的改动都应以这里的数字为准。
+ *
+ * 方法与 JMH 相同：每个基准先预热，再做若干轮定时测量，每轮尽可能多地执行操作，
+ * 报告每次操作耗时的平均值与误差（99.9% 置信区间半宽）；操作的返回值累加到 sink，防止被 JIT 消除。
+ * 一次操作 = 对局面集中的全部局面各执行一次。
+ *
+ * 用法：java HotPathBenchmark [-filter 名称片段] [-iterations 轮数] [-save 结果文件] [-compare 结果文件]
+ * 例如：java HotPathBenchmark -save base.txt，改动后 java HotPathBenchmark -compare base.txt
+ */
+public class HotPathBenchmark {
+
+	// 局面集：黑白交替的落子序列 {x, y}，黑棋先手；最后一步为最近落子（胜负判断的位置）
+	static final int[][][] CORPUS = {
+		// 开局
+		{{7,7},{8,6},{6,5}},
+		{{7,5},{9,7},{7,7},{7,8},{8,8},{6,6}},
+		// 中局
+		{{8,5},{7,9},{9,5},{7,5},{9,4},{8,6},{7,6},{10,3},{9,3},{9,2},{6,7},{5,8}},
+		{{5,5},{7,7},{6,9},{6,7},{5,7},{5,8},{4,9},{3,9},{7,9},{7,6},{6,8},{8,10},{8,9},{5,9},{4,6},{3,5},{6,4},{7,3}},
+		{{8,5},{7,7},{9,9},{6,7},{5,7},{6,6},{6,8},{5,5},{4,4},{4,6},{5,4},{6,4},{3,7},{5,6},{3,6},{4,5},{7,8},{6,5},{6,3},{3,5},{8,8}},
+		{{7,5},{9,7},{7,7},{7,8},{8,8},{6,6},{8,6},{6,7},{6,8},{9,5},{5,9},{4,10},{8,9},{8,7},{9,6},{7,6},{7,9},{6,9},{5,7},{8,10},{4,6},{3,5},{9,9},{5,8}},
+		// 残局
+		{{9,7},{8,6},{8,8},{10,6},{8,7},{9,6},{7,6},{11,6},{12,6},{9,8},{10,7},{7,7},{11,7},{12,7},{10,8},{9,9},{9,5},{10,5},
+			{9,4},{10,4},{13,5},{14,4},{10,3},{8,5},{9,3},{8,3},{9,2},{9,1},{11,4},{12,5},{8,1},{7,0},{10,2},{13,8},{14,9},{8,9}},
+		{{8,8},{6,6},{6,7},{5,7},{7,5},{5,6},{7,6},{5,8},{5,5},{5,9},{5,10},{8,5},{7,7},{7,4},{7,8},{7,9},{6,9},{4,11},{9,6},{8,7},
+			{6,4},{6,5},{4,7},{8,3},{9,2},{8,6},{8,4},{4,6},{6,8},{3,6},{2,6},{6,10},{4,8},{5,11},{9,8},{10,8},{9,7},{9,9},{9,5},{9,4},
+			{7,3},{10,6},{8,2},{9,1},{7,2},{6,2}},
+		{{7,7},{8,6},{6,5},{7,5},{9,7},{7,6},{8,7},{6,7},{10,7},{11,7},{8,5},{9,6},{10,6},{5,6},{6,6},{7,8},{4,5},{8,8},{10,8},{10,5},
+			{10,9},{10,10},{8,9},{11,6},{9,9},{11,9},{7,9},{6,9},{11,8},{12,7},{13,8},{12,8},{13,7},{6,8},{9,8},{12,9},{12,6},{5,8},{4,8},{12,10},
+			{12,11},{11,10},{9,10},{9,11},{8,12},{6,10},{6,11},{7,10},{8,11},{7,12},{11,5},{10,4},{12,4},{13,3},{8,10},{8,13},{7,11},{6,12},{13,6},{13,9}},
+		{{9,8},{7,5},{8,9},{10,7},{8,8},{10,8},{8,7},{8,6},{9,7},{7,6},{9,6},{9,9},{7,8},{10,5},{10,6},{11,5},{6,7},{9,5},{8,5},{5,6},
+			{7,7},{5,7},{7,9},{6,10},{8,10},{8,11},{9,10},{10,11},{5,8},{6,8},{6,9},{5,10},{4,9},{5,9},{3,10},{2,11},{7,11},{7,10},{6,6},{5,5},
+			{4,10},{4,11},{5,11},{6,12},{3,9},{10,9},{10,10},{5,4},{5,3},{12,5},{13,5},{6,5},{2,8},{1,7},{3,8},{3,11},{1,8},{4,8},{3,7},{3,6},
+			{11,10},{12,10},{1,9},{4,5},{3,5},{6,3},{2,9}}
+	};
+
+	private static final long WARMUP_MILLIS = 1000;
+	private static final long ITERATION_MILLIS = 1000;
+	// 99.9% 置信区间的 t 分布分位数（自由度 1..9），与 JMH 的误差口径一致
+	private static final double[] T_999 = {636.6, 31.60, 12.92, 8.610, 6.869, 5.959, 5.408, 5.041, 4.781};
+
+	private final Board[] boards = new Board[CORPUS.length];
+	private final BitBoard[] bitBoards = new BitBoard[CORPUS.length];
+	private final boolean[] blacksTurn = new boolean[CORPUS.length];
+	private final int[] moveBuffer = new int[15 * 15];
+	private final int iterations;
+	// 防止 JIT 把基准操作当作死代码消除
+	private long sink = 0;
+	private final PrintStream console = System.out;
+
+	HotPathBenchmark(int iterations) {
+		this.iterations = iterations;
+		for (int i = 0; i < CORPUS.length; i++) {
+			Board board = new Board(15);
+			boolean black = true;
+			for (int[] m : CORPUS[i]) {
+				board.addStoneNoGUI(m[0], m[1], black);
+				black = !black;
+			}
+			boards[i] = board;
+			bitBoards[i] = new BitBoard(board);
+			blacksTurn[i] = black;
+		}
+	}
+
+	public static void main(String[] args) throws IOException {
+		String filter = "";
+		int iterations = 5;
+		Path save = null;
+		Path compare = null;
+		for (int i = 0; i + 1 < args.length; i += 2) {
+			switch (args[i]) {
+				case "-filter" -> filter = args[i + 1];
+				case "-iterations" -> iterations = Math.max(2, Math.min(10, Integer.parseInt(args[i + 1])));
+				case "-save" -> save = Paths.get(args[i + 1]);
+				case "-compare" -> compare = Paths.get(args[i + 1]);
+				default -> throw new IllegalArgumentException("未知的选项: " + args[i]);
+			}
+		}
+
+		HotPathBenchmark bench = new HotPathBenchmark(iterations);
+		Map<String, Double> baseline = compare != null ? load(compare) : new LinkedHashMap<>();
+		Map<String, Double> results = new LinkedHashMap<>();
+		bench.console.println("局面数: " + CORPUS.length + "  预热 " + WARMUP_MILLIS + " ms  测量 " + iterations + " x "
+				+ ITERATION_MILLIS + " ms  （一次操作 = 全部局面各执行一次）");
+		bench.console.printf("%-34s %14s %12s %10s%n", "基准", "耗时/操作", "误差", "对比");
+		for (Map.Entry<String, LongSupplier> e : bench.benchmarks().entrySet()) {
+			if (!e.getKey().contains(filter)) continue;
+			double[] r = bench.measure(e.getValue());
+			results.put(e.getKey(), r[0]);
+			Double base = baseline.get(e.getKey());
+			String delta = base == null ? "" : String.format("%+.1f%%", 100 * (r[0] - base) / base);
+			bench.console.printf("%-34s %14s %12s %10s%n", e.getKey(), format(r[0]), "± " + format(r[1]), delta);
+		}
+		if (save != null) {
+			List<String> lines = new ArrayList<>();
+			for (Map.Entry<String, Double> e : results.entrySet()) lines.add(e.getKey() + "," + e.getValue());
+			Files.write(save, lines, StandardCharsets.UTF_8);
+		}
+		bench.console.println("(sink " + bench.sink + ")");
+	}
+
+	// 全部基准，按名称排列
+	private Map<String, LongSupplier> benchmarks() {
+		Map<String, LongSupplier> list = new LinkedHashMap<>();
+		list.put("Board.generateMoves", () -> {
+			long sum = 0;
+			for (Board b : boards) sum += b.generateMoves().size();
+			return sum;
+		});
+		list.put("Minimax.evaluateBoardForWhite", () -> {
+			double sum = 0;
+			for (int i = 0; i < boards.length; i++) sum += Minimax.evaluateBoardForWhite(boards[i], blacksTurn[i]);
+			return (long) sum;
+		});
+		list.put("Minimax.getScore(Board)", () -> {
+			long sum = 0;
+			for (int i = 0; i < boards.length; i++) {
+				sum += Minimax.getScore(boards[i], true, blacksTurn[i]) + Minimax.getScore(boards[i], false, blacksTurn[i]);
+			}
+			return sum;
+		});
+		list.put("BitBoard.getScore", () -> {
+			long sum = 0;
+			for (int i = 0; i < bitBoards.length; i++) {
+				sum += bitBoards[i].getScore(true, blacksTurn[i]) + bitBoards[i].getScore(false, blacksTurn[i]);
+			}
+			return sum;
+		});
+		list.put("BitBoard.generateMoves", () -> {
+			long sum = 0;
+			for (BitBoard b : bitBoards) sum += b.generateMoves(moveBuffer);
+			return sum;
+		});
+		list.put("BitBoard.place+remove(全部候选)", () -> {
+			long sum = 0;
+			for (int i = 0; i < bitBoards.length; i++) {
+				BitBoard b = bitBoards[i];
+				int color = blacksTurn[i] ? BitBoard.BLACK : BitBoard.WHITE;
+				int count = b.generateMoves(moveBuffer);
+				for (int k = 0; k < count; k++) {
+					int cell = moveBuffer[k];
+					b.place(cell / 15, cell % 15, color);
+					sum += b.getScore(blacksTurn[i], !blacksTurn[i]);
+					b.remove(cell / 15, cell % 15);
+				}
+			}
+			return sum;
+		});
+		// 小置换表：每次操作前清空的开销可以忽略
+		Minimax[] engines = new Minimax[boards.length];
+		for (int i = 0; i < boards.length; i++) {
+			engines[i] = new Minimax(boards[i], 4);
+			engines[i].setOpeningBook(null);
+			engines[i].setThreads(1);
+		}
+		list.put("Minimax.searchWinningMove", () -> {
+			long sum = 0;
+			for (int i = 0; i < engines.length; i++) sum += engines[i].searchWinningMove(bitBoards[i]);
+			return sum;
+		});
+		// Board 中白棋为 AI：局面轮到黑棋时这里仍按 AI 执白搜索，只用于计时。
+		// 深度系列关闭威胁空间搜索，只衡量 alpha-beta；最后一项为游戏中的默认配置。
+		for (int depth = 2; depth <= 5; depth++) {
+			list.put("Minimax.calculateNextMove(深度" + depth + ")", search(engines, SearchLimit.depth(depth), false));
+		}
+		list.put("Minimax.calculateNextMove(深度4+威胁)", search(engines, SearchLimit.depth(4), true));
+		// 两个控制器落子后的胜负判断都是 Board.findFive（最近一步所在的四条线）
+		list.put("控制器胜负判断(Board.findFive)", () -> {
+			long sum = 0;
+			for (int i = 0; i < boards.length; i++) {
+				int[] last = CORPUS[i][CORPUS[i].length - 1];
+				sum += boards[i].findFive(last[0], last[1]) == null ? 0 : 1;
+			}
+			return sum;
+		});
+		return list;
+	}
+
+	private static LongSupplier search(Minimax[] engines, SearchLimit limit, boolean threatSearch) {
+		return () -> {
+			long sum = 0;
+			for (Minimax ai : engines) {
+				ai.setThreatSearch(threatSearch);
+				ai.clearHash();
+				int[] move = ai.calculateNextMove(limit);
+				sum += move == null ? 0 : move[0] * 15 + move[1];
+			}
+			return sum;
+		};
+	}
+
+	// 预热后测量，返回 {平均每次操作纳秒, 误差}
+	private double[] measure(LongSupplier op) {
+		// 搜索会打印每步的统计信息，测量期间屏蔽
+		System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+		try {
+			run(op, WARMUP_MILLIS);
+			double[] samples = new double[iterations];
+			for (int i = 0; i < iterations; i++) samples[i] = run(op, ITERATION_MILLIS);
+			double mean = 0;
+			for (double s : samples) mean += s;
+			mean /= iterations;
+			double var = 0;
+			for (double s : samples) var += (s - mean) * (s - mean);
+			double stdev = Math.sqrt(var / (iterations - 1));
+			return new double[] {mean, T_999[iterations - 2] * stdev / Math.sqrt(iterations)};
+		} finally {
+			System.setOut(console);
+		}
+	}
+
+	// 在 millis 内反复执行（至少一次），返回平均每次操作纳秒
+	private double run(LongSupplier op, long millis) {
+		long start = System.nanoTime();
+		long end = start + millis * 1_000_000L;
+		long ops = 0;
+		long now;
+		do {
+			sink += op.getAsLong();
+			ops++;
+			now = System.nanoTime();
+		} while (now < end);
+		return (now - start) / (double) ops;
+	}
+
+	private static String format(double nanos) {
+		if (nanos >= 1e6) return String.format("%.2f ms", nanos / 1e6);
+		if (nanos >= 1e3) return String.format("%.2f us", nanos / 1e3);
+		return String.format("%.1f ns", nanos);
+	}
+
+	private static Map<String, Double> load(Path path) throws IOException {
+		Map<String, Double> map = new LinkedHashMap<>();
+		for (String line : Files.readAllLines(path, StandardCharsets.UTF_8)) {
+			int comma = line.lastIndexOf(',');
+			if (comma > 0) map.put(line.substring(0, comma), Double.parseDouble(line.substring(comma + 1)));
+		}
+		return map;
+	}
+}
@@ -0,0 +1,430 @@
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 蒙特卡洛树搜索（MCTS）引擎，可替代 Minimax。
+ * - 选择：PUCT，先验概率来自棋型评估（BitBoard.moveGain 的进攻/防守增量）
+ * - 扩展：每个节点只保留先验最高的若干着法；有成五点时只保留成五/堵五的着法
+ * - 模拟：廉价的启发式对局——能成五就成五、必须堵就堵，否则从随机抽取的几个候选中取静态分最高的，
+ *   走满固定步数后用评估函数估计胜率
+ * - 并行：树并行，多个工作线程共享同一棵树，用虚拟损失（virtual loss）把线程分散到不同分支
+ * - 时间：在时间预算内反复模拟，最后选访问次数最多的着法
+ */
+public class MctsEngine implements Engine {
+
+	// 未限时的 SearchLimit 使用的默认时间预算
+	public static final long DEFAULT_TIME_MILLIS = 3000;
+
+	private static final double C_PUCT = 1.5;
+	private static final int VIRTUAL_LOSS = 3;
+	private static final int MAX_CHILDREN = 24;
+	private static final int PLAYOUT_PLIES = 12;
+	private static final int PLAYOUT_SAMPLES = 6;
+	// 先验权重 = (1 + 静态分)^PRIOR_EXPONENT
+	private static final double PRIOR_EXPONENT = 0.6;
+	// 模拟结束时把评估分换算为胜率：0.5 + 0.5 * s / (|s| + EVAL_SCALE)
+	private static final double EVAL_SCALE = 20_000;
+	private static final int GAIN_CAP = 2_000_000;
+
+	private final Board board;
+	private volatile int threads = 1;
+	// 工作线程池及其线程数；进行中的搜索数为 0 时才按新的线程数替换线程池
+	private ExecutorService pool;
+	private int poolThreads;
+	private int activeSearches;
+
+	// 上一次 calculateNextMove 的结果；search 不会修改它
+	private volatile SearchResult lastResult = new SearchResult(0, TranspositionTable.NO_MOVE, 0, 0, SearchStats.EMPTY, null, false, false);
+
+	/** 树节点。mover 为走到该节点的一方，value 以 mover 的视角累计（1 胜 0 负）。 */
+	private static final class Node {
+		final int move;
+		final int mover;
+		final double prior;
+		volatile Node[] children;
+		int visits;
+		double value;
+		int virtualLoss;
+		// 0 未知，1 mover 已成五（终局），2 无子可下（和棋）
+		volatile int terminal;
+
+		Node(int move, int mover, double prior) {
+			this.move = move;
+			this.mover = mover;
+			this.prior = prior;
+		}
+	}
+
+	public MctsEngine(Board board) {
+		this.board = board;
+	}
+
+	// 只记录线程数，从下一次搜索开始生效；进行中的搜索仍使用原来的线程池
+	@Override
+	public void setThreads(int threads) {
+		this.threads = Math.max(1, threads);
+	}
+
+	@Override
+	public int getThreads() {
+		return threads;
+	}
+
+	@Override
+	public int getLastDepth() {
+		return lastResult.getDepth();
+	}
+
+	// 上一次搜索完成的模拟次数
+	public long getLastPlayouts() {
+		return lastResult.getStats().getNodes();
+	}
+
+	@Override
+	public long getLastNodeCount() {
+		return lastResult.getStats().getNodes();
+	}
+
+	// 节点数与叶子数均为模拟次数，MCTS 没有截断与置换表
+	@Override
+	public SearchStats getLastStats() {
+		return lastResult.getStats();
+	}
+
+	@Override
+	public synchronized void close() {
+		if (pool != null) {
+			pool.shutdownNow();
+			pool = null;
+		}
+	}
+
+	// 开始一次搜索时取得线程池；线程数已变化且没有其他进行中的搜索时，先关闭空闲的旧线程池
+	private synchronized ExecutorService acquirePool() {
+		if (pool != null && poolThreads != threads && activeSearches == 0) {
+			pool.shutdown();
+			pool = null;
+		}
+		if (pool == null) {
+			poolThreads = threads;
+			AtomicInteger ids = new AtomicInteger();
+			pool = Executors.newFixedThreadPool(poolThreads, r -> {
+				Thread t = new Thread(r, "mcts-worker-" + ids.incrementAndGet());
+				t.setDaemon(true);
+				return t;
+			});
+		}
+		activeSearches++;
+		return pool;
+	}
+
+	private synchronized void releasePool() {
+		activeSearches--;
+	}
+
+	// 为 Board 上的 AI（白棋）走一步，结果记录在 getLast* 中
+	@Override
+	public int[] calculateNextMove(SearchLimit limit) {
+		SearchResult result = search(Position.of(board, BitBoard.WHITE), limit);
+		lastResult = result;
+		SearchStats stats = result.getStats();
+		System.out.println("MCTS 模拟次数: " + stats.getNodes() + " 线程数: " + threads + " 树深度: " + stats.getDepth()
+				+ " 计算耗时: " + stats.getElapsedMillis() + " ms");
+		return result.getMove();
+	}
+
+	/*
+	 * 可重入的搜索入口：每次调用各建一棵树，多个搜索可以同时提交到同一个工作线程池。
+	 * 不读写 Board，也不发送界面通知。得分为根节点最佳着法的胜率换算的评估分（轮到的一方视角）。
+	 */
+	@Override
+	public SearchResult search(Position position, SearchLimit limit) {
+		long startTime = System.currentTimeMillis();
+		long budget = limit.isTimed() ? limit.getTimeMillis() : DEFAULT_TIME_MILLIS;
+		long deadline = System.nanoTime() + budget * 1_000_000L;
+
+		// 引擎总是为白棋搜索
+		BitBoard root = position.toSearchBoard();
+		int size = root.getSize();
+		int move = TranspositionTable.NO_MOVE;
+		double winRate = 0.5;
+		Node rootNode = new Node(TranspositionTable.NO_MOVE, BitBoard.BLACK, 1.0);
+		AtomicLong playouts = new AtomicLong();
+		AtomicInteger maxDepth = new AtomicInteger();
+
+		if (root.getStoneCount() == 0) {
+			move = (size / 2) * size + size / 2;
+		} else {
+			expand(rootNode, root);
+			Node[] rootChildren = rootNode.children;
+			if (rootChildren.length == 1) {
+				// 只有一个着法（成五或必须堵），无需模拟
+				move = rootChildren[0].move;
+			} else if (rootChildren.length > 1) {
+				ExecutorService executor;
+				int workers;
+				synchronized (this) {
+					executor = acquirePool();
+					workers = poolThreads;
+				}
+				try {
+					Future<?>[] futures = new Future<?>[workers];
+					for (int i = 0; i < workers; i++) {
+						long seed = System.nanoTime() + i * 0x9E3779B97F4A7C15L;
+						futures[i] = executor.submit(() -> work(rootNode, root, deadline, seed, playouts, maxDepth));
+					}
+					for (Future<?> f : futures) {
+						try {
+							f.get();
+						} catch (Exception e) {
+							throw new IllegalStateException("MCTS 工作线程异常", e);
+						}
+					}
+				} finally {
+					releasePool();
+				}
+				Node best = null;
+				for (Node child : rootChildren) {
+					if (best == null || child.visits > best.visits) best = child;
+				}
+				move = best.move;
+				synchronized (best) {
+					if (best.visits > 0) winRate = best.value / best.visits;
+				}
+			}
+		}
+
+		long elapsed = System.currentTimeMillis() - startTime;
+		long count = playouts.get();
+		int depth = maxDepth.get();
+		// 胜率 p 换算回评估分，与模拟结束时的 0.5 + 0.5 * s / (|s| + EVAL_SCALE) 互逆
+		double x = 2 * winRate - 1;
+		int score = (int) Math.round(x * EVAL_SCALE / Math.max(1e-3, 1 - Math.abs(x)));
+		SearchStats stats = new SearchStats(count, count, 0, 0, 0, 0, 0, depth, elapsed, elapsed);
+		return new SearchResult(size, move, score, depth, stats, null, false, false);
+	}
+
+	// 工作线程：在自己的棋盘副本上反复执行 选择-扩展-模拟-回传
+	private void work(Node rootNode, BitBoard root, long deadline, long seed, AtomicLong playouts, AtomicInteger maxDepth) {
+		BitBoard b = new BitBoard(root);
+		int size = b.getSize();
+		SplittableRandom random = new SplittableRandom(seed);
+		Node[] path = new Node[size * size + 1];
+		int[] moves = new int[size * size];
+		int[] played = new int[size * size];
+
+		while (System.nanoTime() < deadline) {
+			// 选择：沿 PUCT 最大的子节点下行，途中加虚拟损失
+			int depth = 0;
+			Node node = rootNode;
+			path[0] = node;
+			while (node.children != null && node.terminal == 0) {
+				Node child = select(node);
+				if (child == null) break;
+				b.place(child.move / size, child.move % size, child.mover);
+				node = child;
+				path[++depth] = node;
+			}
+			maxDepth.accumulateAndGet(depth, Math::max);
+
+			// 扩展并模拟，得到以 node.mover 视角的结果
+			double result;
+			if (node.terminal == 0 && node != rootNode && b.getScore(node.mover == BitBoard.BLACK, node.mover != BitBoard.BLACK) >= Minimax.getWinScore()) {
+				node.terminal = 1;
+			}
+			if (node.terminal == 1) {
+				result = 1.0;
+			} else {
+				if (node.children == null) expand(node, b);
+				if (node.terminal == 2) result = 0.5;
+				else result = playout(b, other(node.mover), node.mover, random, moves, played);
+			}
+
+			// 回传：撤销棋子，更新统计并移除虚拟损失
+			for (int i = depth; i >= 0; i--) {
+				Node n = path[i];
+				double v = n.mover == node.mover ? result : 1.0 - result;
+				synchronized (n) {
+					n.visits++;
+					n.value += v;
+					if (i > 0) n.virtualLoss -= VIRTUAL_LOSS;
+				}
+				if (i > 0) b.remove(n.move / size, n.move % size);
+			}
+			playouts.incrementAndGet();
+		}
+	}
+
+	// PUCT 选择，并给选中的子节点加上虚拟损失
+	private Node select(Node parent) {
+		Node[] children = parent.children;
+		synchronized (parent) {
+			double sqrtParent = Math.sqrt(Math.max(1, parent.visits));
+			Node best = null;
+			double bestScore = Double.NEGATIVE_INFINITY;
+			for (Node child : children) {
+				double score;
+				synchronized (child) {
+					int n = child.visits + child.virtualLoss;
+					// 未访问的节点按略低于五五开估计，促使先验高的着法先被尝试
+					double q = n == 0 ? 0.4 : child.value / n;
+					score = q + C_PUCT * child.prior * sqrtParent / (1 + n);
+				}
+				if (score > bestScore) {
+					bestScore = score;
+					best = child;
+				}
+			}
+			if (best != null) {
+				synchronized (best) {
+					best.virtualLoss += VIRTUAL_LOSS;
+				}
+			}
+			return best;
+		}
+	}
+
+	// 扩展：生成子节点及先验概率。成五点优先，对方有成五点时只考虑堵点。
+	private void expand(Node node, BitBoard b) {
+		synchronized (node) {
+			if (node.children != null) return;
+			int color = other(node.mover);
+			int opp = node.mover;
+			int size = b.getSize();
+			int[] cells = new int[size];
+
+			int[] forced = null;
+			if (b.collectThreatCells(color, BitBoard.FIVE, cells) > 0) {
+				forced = firstCell(cells, size);
+			} else if (b.collectThreatCells(opp, BitBoard.FIVE, cells) > 0) {
+				forced = allCells(cells, size);
+			}
+			if (forced != null) {
+				Node[] children = new Node[forced.length];
+				for (int i = 0; i < forced.length; i++) children[i] = new Node(forced[i], color, 1.0 / forced.length);
+				node.children = children;
+				return;
+			}
+
+			int[] moves = b.generateMoves();
+			if (moves.length == 0) {
+				node.terminal = 2;
+				node.children = new Node[0];
+				return;
+			}
+			double[] weights = new double[moves.length];
+			for (int i = 0; i < moves.length; i++) {
+				int row = moves[i] / size;
+				int col = moves[i] % size;
+				int score = 2 * b.moveGain(row, col, color, GAIN_CAP) + b.moveGain(row, col, opp, GAIN_CAP);
+				weights[i] = Math.pow(1.0 + score, PRIOR_EXPONENT);
+			}
+			// 只保留先验最高的 MAX_CHILDREN 个着法
+			int count = Math.min(MAX_CHILDREN, moves.length);
+			for (int i = 0; i < count; i++) {
+				int best = i;
+				for (int j = i + 1; j < moves.length; j++) {
+					if (weights[j] > weights[best]) best = j;
+				}
+				double w = weights[i]; weights[i] = weights[best]; weights[best] = w;
+				int m = moves[i]; moves[i] = moves[best]; moves[best] = m;
+			}
+			double total = 0;
+			for (int i = 0; i < count; i++) total += weights[i];
+			Node[] children = new Node[count];
+			for (int i = 0; i < count; i++) children[i] = new Node(moves[i], color, weights[i] / total);
+			node.children = children;
+		}
+	}
+
+	/*
+	 * 启发式模拟：从 color 方开始走最多 PLAYOUT_PLIES 步。
+	 * 返回以 perspective 方视角的结果（1 胜，0 负，其间为评估估计的胜率），结束前撤销所有模拟落子。
+	 */
+	private double playout(BitBoard b, int color, int perspective, SplittableRandom random, int[] moves, int[] played) {
+		int size = b.getSize();
+		int[] cells = new int[size];
+		int count = 0;
+		double result = -1;
+		int side = color;
+		for (int ply = 0; ply < PLAYOUT_PLIES; ply++) {
+			int opp = other(side);
+			int cell;
+			if (b.collectThreatCells(side, BitBoard.FIVE, cells) > 0) {
+				// 能成五：当前一方获胜
+				result = side == perspective ? 1.0 : 0.0;
+				break;
+			}
+			int threats = b.collectThreatCells(opp, BitBoard.FIVE, cells);
+			if (threats >= 2) {
+				// 对方两个成五点，堵不住
+				result = side == perspective ? 0.0 : 1.0;
+				break;
+			} else if (threats == 1) {
+				cell = firstCell(cells, size)[0];
+			} else {
+				int n = b.generateMoves(moves);
+				if (n == 0) {
+					result = 0.5;
+					break;
+				}
+				// 随机抽取几个候选，取静态分最高的
+				cell = moves[random.nextInt(n)];
+				int best = Integer.MIN_VALUE;
+				for (int k = 0; k < PLAYOUT_SAMPLES; k++) {
+					int c = moves[random.nextInt(n)];
+					int score = 2 * b.moveGain(c / size, c % size, side, GAIN_CAP) + b.moveGain(c / size, c % size, opp, GAIN_CAP);
+					if (score > best) {
+						best = score;
+						cell = c;
+					}
+				}
+			}
+			b.place(cell / size, cell % size, side);
+			played[count++] = cell;
+			side = opp;
+		}
+		if (result < 0) {
+			// 未分胜负：用评估函数估计 perspective 方的胜率
+			boolean blacksTurn = side == BitBoard.BLACK;
+			boolean forBlack = perspective == BitBoard.BLACK;
+			double s = (double) b.getScore(forBlack, blacksTurn) - b.getScore(!forBlack, blacksTurn);
+			result = 0.5 + 0.5 * s / (Math.abs(s) + EVAL_SCALE);
+		}
+		while (count > 0) {
+			int cell = played[--count];
+			b.remove(cell / size, cell % size);
+		}
+		return result;
+	}
+
+	private static int[] firstCell(int[] cells, int size) {
+		for (int r = 0; r < size; r++) {
+			if (cells[r] != 0) return new int[] {r * size + Integer.numberOfTrailingZeros(cells[r])};
+		}
+		return new int[0];
+	}
+
+	private static int[] allCells(int[] cells, int size) {
+		int total = 0;
+		for (int r = 0; r < size; r++) total += Integer.bitCount(cells[r]);
+		int[] result = new int[total];
+		int i = 0;
+		for (int r = 0; r < size; r++) {
+			int bits = cells[r];
+			while (bits != 0) {
+				result[i++] = r * size + Integer.numberOfTrailingZeros(bits);
+				bits &= bits - 1;
+			}
+		}
+		return result;
+	}
+
+	private static int other(int color) {
+		return color == BitBoard.WHITE ? BitBoard.BLACK : BitBoard.WHITE;
+	}
+}
@@ -1,17 +1,145 @@
-import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
-
-public class Minimax {
+public class Minimax implements Engine {
 	
-	// 此变量用于跟踪评估次数，以便进行基准测试。
-	public static int evaluationCount = 0;
 	// Board 实例负责处理棋盘机制
 	private Board board;
 	// 获胜分数应大于所有可能的棋盘评估分
 	private static final int WIN_SCORE = 100_000_000;
+	// 搜索得分：整数，从轮到落子一方的视角计算（负极大值）
+	// 必胜/必败得分为 ±(WIN_SCORE - 步数)，越快取胜得分越高
+	private static final int INFINITY = WIN_SCORE + 1;
+	private static final int MATE_BOUND = WIN_SCORE - 1000;
+	// 渴望窗口的初始半宽，失败后按倍数放宽，超过上限直接改用全窗口
+	private static final int ASPIRATION_WINDOW = 100;
+	private static final int ASPIRATION_LIMIT = 1_000_000;
+	// 置换表默认内存预算（MB）
+	public static final int DEFAULT_HASH_MB = 32;
+
+	// 置换表在多次搜索之间保留，后续搜索可以复用之前的结果；多个搜索线程无锁共享
+	private TranspositionTable tt;
+
+	// 超时控制：每搜索 1024 个节点检查一次时间
+	private static final int TIME_CHECK_INTERVAL = 1024;
+
+	// Lazy SMP：主线程之外再启动 threads-1 个辅助线程搜索同一根局面
+	private volatile int threads = 1;
+	// 主线程的搜索状态在多次搜索之间保留（历史分）；同时有多个搜索时，其余搜索使用新建的线程状态
+	private final SearchThread mainThread = new SearchThread(0);
+	private final AtomicBoolean mainThreadBusy = new AtomicBoolean();
+
+	// 上一次 calculateNextMove 的结果（着法、深度、得分、统计）；search 与后台思考不会修改它
+	private volatile SearchResult lastResult = new SearchResult(0, TranspositionTable.NO_MOVE, 0, 0, SearchStats.EMPTY, null, false, false);
+
+	// 着法排序：置换表着法 > 成四/活三等威胁着法 > 杀手着法 > 其他（静态棋型分 + 历史分）
+	private static final int MAX_PLY = SearchLimit.MAX_DEPTH + 1;
+	private static final int TT_MOVE_SCORE = Integer.MAX_VALUE;
+	private static final int THREAT_BONUS = 1 << 30;
+	private static final int KILLER_BONUS = 1 << 29;
+	private static final int HISTORY_LIMIT = 1 << 24;
+	// 静态分达到该值视为威胁着法（己方或对方的活三及以上）
+	private static final int THREAT_SCORE = 40_000;
+	// 单条线上棋型增量的上限，保证成五 > 成四且求和不溢出
+	private static final int GAIN_CAP = 2_000_000;
+	// 辅助线程给普通着法的排序分加上的随机扰动范围，使各线程走向不同的子树
+	private static final int ORDER_NOISE = 64;
+	private boolean moveOrdering = true;
+
+	// 静态搜索（quiescence）：叶子节点只沿强制着法（成四/堵四/活三）继续展开，避免水平线效应。
+	// 每个叶子最多展开 QS_NODE_LIMIT 个节点、QS_MAX_PLY 层。
+	private boolean quiescence = true;
+	private static final int QS_MAX_PLY = 6;
+	private static final int QS_NODE_LIMIT = 24;
+	// 双方棋型得分都低于门槛（轮到的一方没有活三/冲四，对方没有冲四/活三）时局面平静，不扫描威胁点
+	private static final int QS_OWN_THREAT = 50_000;
+	private static final int QS_OPP_THREAT = 200;
+
+	// 选择性剪枝，各自可以单独开关：
+	// - 后期着法缩减（LMR）：排序靠后的普通着法先以浅一层（很靠后时浅两层）的零窗口搜索，超过 alpha 再全深度重搜；
+	//   能阻止对方成三（对方在该点落子的棋型增量达到 LMR_DEFENSE_GAIN）的着法不缩减
+	// - 冲四剪枝：对方有成五点时，除了己方直接成五，只搜索堵点
+	// - 无望剪枝（futility）：接近叶子的非主变例节点，静态评估加上余量仍不超过 alpha 时跳过普通着法
+	private boolean lateMoveReduction = true;
+	private static final int LMR_MIN_DEPTH = 3;
+	private static final int LMR_MIN_MOVES = 4;
+	private static final int LMR_DEEP_MOVES = 12;
+	// 眠二成眠三的增量（10 - 3）；更大的增量（活二成活三等）已经是威胁着法
+	private static final int LMR_DEFENSE_GAIN = 7;
+	private boolean fourPruning = true;
+	private boolean futilityPruning = true;
+	private static final int FUTILITY_MAX_DEPTH = 2;
+	private static final int FUTILITY_MARGIN = 300;
+
+	// 威胁空间搜索（VCF/VCT）：在主搜索之前寻找强制取胜序列
+	private boolean threatSearch = true;
+	public static final long DEFAULT_THREAT_NODES = 200_000;
+	private long threatNodeLimit = DEFAULT_THREAT_NODES;
+	// 限时搜索时，威胁空间搜索（VCF 与 VCT 合计）最多占用时间预算的这一比例（1/N）
+	private static final int THREAT_TIME_FRACTION = 10;
+	// 限深搜索时，节点预算按深度折算：深度达到该值才使用全部 threatNodeLimit
+	private static final int THREAT_FULL_DEPTH = 8;
+
+	// 后台思考（pondering）：玩家思考期间，为最可能的几步玩家落子预先计算应对
+	private static final int PONDER_CANDIDATES = 6;
+	private Thread ponderThread;
+	// 置位后后台思考不再开始新的搜索；正在进行的搜索通过 ponderContext 取消
+	private volatile boolean ponderAbort;
+	private volatile SearchContext ponderContext;
+	// 玩家落子后的局面键 -> 准备好的应对
+	private final Map<Long, SearchResult> ponderReplies = new ConcurrentHashMap<>();
+
+	// 开局库：收录的局面直接返回库中的着法，不再搜索；null 表示不使用
+	private volatile OpeningBook openingBook;
+
+	// 神经网络评估（NNUE）：非 null 时叶子节点用它代替手工棋型评估
+	private volatile Nnue nnue;
 
 	public Minimax(Board board) {
+		this(board, DEFAULT_HASH_MB);
+	}
+
+	public Minimax(Board board, int hashMegabytes) {
 		this.board = board;
+		this.tt = new TranspositionTable(hashMegabytes);
+		this.openingBook = OpeningBook.getDefault();
+		this.nnue = Nnue.getDefault();
+	}
+
+	// 设置开局库，传入 null 关闭开局库
+	public void setOpeningBook(OpeningBook book) {
+		this.openingBook = book;
+	}
+
+	// 设置神经网络评估，传入 null 使用手工棋型评估
+	public void setNnue(Nnue net) {
+		this.nnue = net;
+	}
+
+	// 上一次 calculateNextMove 的着法是否来自开局库
+	public boolean isLastBookHit() {
+		return lastResult.isBookHit();
+	}
+
+	// 重新设置置换表的内存预算（会清空已有内容）
+	public void setHashSize(int megabytes) {
+		this.tt = new TranspositionTable(megabytes);
+	}
+
+	// 清空置换表，使下一次搜索不受之前结果影响（基准测试用）
+	public void clearHash() {
+		tt.clear();
+	}
+
+	// 设置搜索线程数（含主线程），1 表示单线程搜索
+	public void setThreads(int threads) {
+		this.threads = Math.max(1, threads);
+	}
+
+	public int getThreads() {
+		return threads;
 	}
 	
 	// winScore 的 Getter 函数
@@ -19,11 +147,14 @@ public class Minimax {
 		return WIN_SCORE;
 	}
 
+	// 搜索得分是否表示找到了强制胜利
+	public static boolean isWinningScore(int score) {
+		return score >= MATE_BOUND;
+	}
+
 	// 此函数计算白棋相对于黑棋的相对得分。
 	// (即白棋比黑棋早赢的可能性有多大)
-	// 该值将用作 Minimax 算法中的得分。
 	public static double evaluateBoardForWhite(Board board, boolean blacksTurn) {
-		evaluationCount++;
 		// 获取双方玩家的棋盘得分。
 		double blackScore = getScore(board, true, blacksTurn);
 		double whiteScore = getScore(board, false, blacksTurn);
@@ -34,6 +165,20 @@ public class Minimax {
 		return whiteScore / blackScore;
 	}
 
+	// 搜索使用的整数评估：轮到落子一方的得分减去对方得分。
+	// 差值比比值更适合窄窗口搜索；结果限制在必胜分之内。
+	// 棋盘启用了神经网络评估时改用 NNUE 的输出（同样是轮到一方的视角）。
+	public static int evaluate(BitBoard board, int color) {
+		Nnue.Accumulator accumulator = board.getAccumulator();
+		if(accumulator != null) {
+			return Math.max(-MATE_BOUND, Math.min(MATE_BOUND, accumulator.evaluate(color)));
+		}
+		boolean blacksTurn = color == BitBoard.BLACK;
+		long own = board.getScore(blacksTurn, blacksTurn);
+		long opp = board.getScore(!blacksTurn, blacksTurn);
+		return (int) Math.max(-MATE_BOUND, Math.min(MATE_BOUND, own - opp));
+	}
+
 	// 此函数计算指定玩家的棋盘得分。
 	// (即：考虑该玩家在棋盘上有多少个连续的 2、3、4 子，其中有多少个被堵死等，以此来衡量玩家的整体局势)
 	public static int getScore(Board board, boolean forBlack, boolean blacksTurn) {
@@ -47,277 +192,930 @@ public class Minimax {
 				evaluateDiagonal(boardMatrix, forBlack, blacksTurn);
 	}
 	
-	// 此函数用于获取 AI 的下一步智能落子。
+	// 此函数用于获取 AI 的下一步智能落子（固定深度）。
 	public int[] calculateNextMove(int depth) {
-		// 锁定棋盘，让 AI 进行决策。
-		board.thinkingStarted();
+		return calculateNextMove(SearchLimit.depth(depth));
+	}
+
+	// 上一次 calculateNextMove 完整搜索到的深度
+	public int getLastDepth() {
+		return lastResult.getDepth();
+	}
+
+	// 上一次 calculateNextMove 访问的节点数
+	public long getLastNodeCount() {
+		return lastResult.getStats().getNodes();
+	}
+
+	// 上一次 calculateNextMove 的统计数据（节点、叶子、截断、置换表命中、耗时等）
+	@Override
+	public SearchStats getLastStats() {
+		return lastResult.getStats();
+	}
+
+	// 上一次 calculateNextMove 的完整结果
+	public SearchResult getLastResult() {
+		return lastResult;
+	}
+
+	// 上一次 calculateNextMove 的搜索得分（AI 视角，正数对 AI 有利）
+	public int getLastScore() {
+		return lastResult.getScore();
+	}
+
+	// 开关着法排序（关闭时只保留置换表着法优先），便于对比排序前后的节点数
+	public void setMoveOrdering(boolean enabled) {
+		this.moveOrdering = enabled;
+	}
+
+	// 开关叶子节点的静态搜索（关闭时叶子直接静态评估）
+	public void setQuiescence(boolean enabled) {
+		this.quiescence = enabled;
+	}
+
+	// 开关后期着法缩减（LMR）
+	public void setLateMoveReduction(boolean enabled) {
+		this.lateMoveReduction = enabled;
+	}
+
+	// 开关冲四剪枝（对方有成五点时只搜索堵点）
+	public void setFourPruning(boolean enabled) {
+		this.fourPruning = enabled;
+	}
+
+	// 开关叶子附近的无望剪枝
+	public void setFutilityPruning(boolean enabled) {
+		this.futilityPruning = enabled;
+	}
+
+	// 开关主搜索前的 VCF/VCT 威胁空间搜索
+	public void setThreatSearch(boolean enabled) {
+		this.threatSearch = enabled;
+	}
+
+	// 威胁空间搜索的节点预算（VCF 与 VCT 合计；限深搜索时再按深度折算）
+	public void setThreatNodeLimit(long nodes) {
+		this.threatNodeLimit = Math.max(1, nodes);
+	}
+
+	// 上一次 calculateNextMove 找到的强制取胜序列，没有则为 null
+	public int[] getLastWinningLine() {
+		return lastResult.getWinningLine();
+	}
+
+	// 上一次 calculateNextMove 是否命中了后台思考准备好的应对
+	public boolean isLastPonderHit() {
+		return lastResult.isPonderHit();
+	}
+
+	/*
+	 * 开始后台思考：轮到玩家（黑棋）时调用。
+	 * 按静态棋型分挑出玩家最可能的几步落子，逐一以 limit 搜索 AI 的应对并记录下来。
+	 * 玩家实际落子命中时 calculateNextMove 直接返回准备好的应对；
+	 * 未命中时，后台搜索留在置换表中的结果同样能加快正式搜索。
+	 */
+	public synchronized void startPondering(SearchLimit limit) {
+		stopPondering();
+		ponderReplies.clear();
+		BitBoard position = new BitBoard(board);
+		ponderThread = new Thread(() -> ponder(position, limit), "ai-ponder");
+		ponderThread.setDaemon(true);
+		ponderThread.start();
+	}
+
+	// 停止后台思考并等待其退出；已准备好的应对保留，直到下一次 calculateNextMove
+	public synchronized void stopPondering() {
+		Thread t = ponderThread;
+		if(t == null) return;
+		ponderAbort = true;
+		SearchContext ctx = ponderContext;
+		if(ctx != null) ctx.cancel();
+		try {
+			t.join();
+		} catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		ponderThread = null;
+		ponderContext = null;
+		ponderAbort = false;
+	}
+
+	// 丢弃后台思考的结果（悔棋、新开局等局面被改动时调用）
+	public void cancelPondering() {
+		stopPondering();
+		ponderReplies.clear();
+	}
+
+	private void ponder(BitBoard position, SearchLimit limit) {
+		int size = position.getSize();
+		for(int cell : likelyReplies(position, BitBoard.BLACK, PONDER_CANDIDATES)) {
+			int row = cell / size;
+			int col = cell % size;
+			position.place(row, col, BitBoard.BLACK);
+			// 玩家这一步直接获胜时无需准备应对
+			if(position.getScore(true, false) < WIN_SCORE) {
+				SearchContext ctx = new SearchContext();
+				ponderContext = ctx;
+				// 先发布 ctx 再检查标志：stopPondering 要么看到 ctx 并取消它，要么这里看到 ponderAbort
+				if(ponderAbort) return;
+				SearchResult reply = think(new BitBoard(position), limit, System.currentTimeMillis(), ctx);
+				// 被中断的搜索没有达到要求的深度，结果不可用
+				if(!ctx.cancelled && reply.hasMove()) {
+					ponderReplies.put(position.getHash(), reply);
+				}
+			}
+			position.remove(row, col);
+		}
+	}
+
+	// 按静态棋型分（进攻加倍 + 防守）取 color 方最可能的 count 步落子；也用作无需搜索的应急着法
+	static int[] likelyReplies(BitBoard position, int color, int count) {
+		int opp = color == BitBoard.WHITE ? BitBoard.BLACK : BitBoard.WHITE;
+		int size = position.getSize();
+		int[] moves = position.generateMoves();
+		int[] scores = new int[moves.length];
+		for(int i = 0; i < moves.length; i++) {
+			int row = moves[i] / size;
+			int col = moves[i] % size;
+			scores[i] = 2 * position.moveGain(row, col, color, GAIN_CAP) + position.moveGain(row, col, opp, GAIN_CAP);
+		}
+		int n = Math.min(count, moves.length);
+		for(int i = 0; i < n; i++) pickMove(moves, scores, i, moves.length);
+		return java.util.Arrays.copyOf(moves, n);
+	}
 
-		int[] move = new int[2];
+	/*
+	 * 可重入的搜索入口：为 position 中轮到的一方按 limit 搜索，返回着法、得分与统计。
+	 * 不读写 Board、不发送界面通知（thinkingStarted/Finished 由调用方负责），也不修改 getLast* 的结果，
+	 * 每次调用有自己的搜索线程状态与停止标志，多个线程可以同时调用（提示、分析、多局对弈）。
+	 * 这些搜索无锁共享同一个置换表，局面键包含全部棋子与轮次，不同局面之间不会混淆。
+	 */
+	@Override
+	public SearchResult search(Position position, SearchLimit limit) {
+		return think(position.toSearchBoard(), limit, System.currentTimeMillis(), new SearchContext());
+	}
+
+	/*
+	 * 为 Board 上的 AI（白棋）走一步，结果记录在 getLast* 中。
+	 * 玩家落子命中后台思考时直接返回准备好的应对，否则调用 search。
+	 */
+	public int[] calculateNextMove(SearchLimit limit) {
+		// 玩家已落子：停止后台思考（后台思考的统计不计入本次）
+		stopPondering();
 
 		// 仅用于基准测试目的。
 		long startTime = System.currentTimeMillis();
 
+		// 搜索在不可变的局面快照上进行，不再逐格扫描 int[][]。
+		Position position = Position.of(board, BitBoard.WHITE);
+		SearchResult prepared = ponderReplies.get(position.toSearchBoard().getHash());
+		ponderReplies.clear();
+		SearchResult result;
+		if(prepared != null && position.isEmpty(prepared.getCell() / position.getSize(), prepared.getCell() % position.getSize())) {
+			// 玩家的落子命中后台思考，直接使用准备好的应对
+			result = prepared.asPonderHit(System.currentTimeMillis() - startTime);
+		} else {
+			result = search(position, limit);
+		}
+		lastResult = result;
+
+		System.out.println(result.getStats() + (result.isPonderHit() ? " (命中后台思考)" : "") + (result.isBookHit() ? " (开局库)" : ""));
+		return result.getMove();
+	}
+
+	/*
+	 * 迭代加深：依次搜索深度 1, 2, 3 ...，每轮的置换表结果为下一轮提供着法排序。
+	 * 从第 3 层起，以上一轮得分为中心设置渴望窗口，落在窗口外时放宽窗口重搜。
+	 * 限时搜索在截止时间到达时中断当前轮，返回最后一轮完整搜索的着法。
+	 * 深度 1 总会完整搜索，保证始终有着法可用。
+	 *
+	 * Lazy SMP：threads > 1 时，辅助线程在各自的棋盘副本上搜索同一根局面，
+	 * 深度错开、着法顺序带随机扰动，通过共享置换表互相提供结果。
+	 * 主线程结束后通知辅助线程停止，取完成深度最深的线程的着法。
+	 *
+	 * 为 AI（白棋）决定 searchBoard 上的着法：直接成五 > 威胁空间搜索 > 迭代加深搜索。
+	 * 没有可下的位置时结果的着法为 NO_MOVE；ctx 被取消时尽快返回（结果不可用）。
+	 */
+	private SearchResult think(BitBoard searchBoard, SearchLimit limit, long startTime, SearchContext ctx) {
+		int size = searchBoard.getSize();
+		tt.newSearch();
+
+		// 空棋盘：落在中心
+		if(searchBoard.getStoneCount() == 0) {
+			return trivialResult(size, (size / 2) * size + size / 2, 0, startTime, null, false);
+		}
+
+		// 开局库中收录的局面直接走库中的着法
+		OpeningBook book = openingBook;
+		if(book != null) {
+			int bookMove = book.lookup(searchBoard, BitBoard.WHITE);
+			if(bookMove != TranspositionTable.NO_MOVE) {
+				return trivialResult(size, bookMove, 0, startTime, null, true);
+			}
+		}
+
 		// 检查是否有任何空位可以直接结束游戏。
 		// 确保 AI 始终抓住赢棋的机会。
-		Object[] bestMove = searchWinningMove(board);
-
-		if(bestMove != null ) {
+		int winningMove = searchWinningMove(searchBoard);
+		if(winningMove != TranspositionTable.NO_MOVE) {
 			// 找到赢棋点。
-			move[0] = (Integer)(bestMove[1]);
-			move[1] = (Integer)(bestMove[2]);
-			
-		} else {
-			// 如果没有直接赢棋的步子，则使用指定深度搜索 Minimax 树。
-			bestMove = minimaxSearchAB(depth, new Board(board), true, -1.0, getWinScore());
-			if(bestMove[1] == null) {
-				move = null;//没有找到落子
-			} else {
-				move[0] = (Integer)(bestMove[1]);
-				move[1] = (Integer)(bestMove[2]);
+			return trivialResult(size, winningMove, WIN_SCORE, startTime, null, false);
+		}
+
+		int[] threatLine = threatSearch ? searchThreatWin(searchBoard, limit, ctx) : null;
+		if(threatLine != null) {
+			// 找到连续冲四/活三的强制取胜序列，直接走第一步。
+			return trivialResult(size, threatLine[0], WIN_SCORE - threatLine.length, startTime, threatLine, false);
+		}
+
+		// 如果没有直接赢棋的步子，则逐步加深搜索。
+		// 启用神经网络评估时在搜索棋盘上建立累加器，各线程的拷贝随之复制
+		Nnue net = nnue;
+		if(net != null && net.getBoardSize() == size) searchBoard.setNnue(net);
+		// 截止时间从搜索开始算起（威胁空间搜索用掉的时间也计入），限时即硬性的时间上限；
+		// 深度 1 仍会完整搜索，保证有着法
+		long remaining = limit.getTimeMillis() - (System.currentTimeMillis() - startTime);
+		ctx.deadline = limit.isTimed() ? System.nanoTime() + Math.max(0, remaining) * 1_000_000L : 0L;
+
+		int threadCount = threads;
+		SearchThread[] helpers = new SearchThread[threadCount - 1];
+		Thread[] helperThreads = new Thread[threadCount - 1];
+		for(int i = 0; i < helpers.length; i++) {
+			int id = i + 1;
+			SearchThread helper = new SearchThread(id);
+			helper.prepare(new BitBoard(searchBoard), ctx);
+			helpers[i] = helper;
+			helperThreads[i] = new Thread(() -> helper.iterate(limit, startTime), "ai-helper-" + id);
+			helperThreads[i].setDaemon(true);
+			helperThreads[i].start();
+		}
+
+		// 保留的主线程状态正被其他搜索使用时，本次搜索使用新的线程状态
+		boolean ownsMain = mainThreadBusy.compareAndSet(false, true);
+		SearchThread main = ownsMain ? mainThread : new SearchThread(0);
+		try {
+			main.prepare(searchBoard, ctx);
+			main.iterate(limit, startTime);
+		} finally {
+			ctx.stopped = true;
+			if(ownsMain) mainThreadBusy.set(false);
+		}
+
+		// 取完成深度最深的线程的结果，深度相同时以主线程为准
+		SearchThread best = main;
+		for(int i = 0; i < helpers.length; i++) {
+			try {
+				helperThreads[i].join();
+			} catch(InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			if(helpers[i].lastDepth > best.lastDepth && helpers[i].bestCell != TranspositionTable.NO_MOVE) {
+				best = helpers[i];
 			}
 		}
-		System.out.println("计算案例数: " + evaluationCount + " 计算耗时: " + (System.currentTimeMillis() - startTime) + " ms");
-		board.thinkingFinished();
-		
-		evaluationCount=0;
-		
-		return move;
+
+		// 汇总所有线程的计数；首个着法取最先完成深度 1 的线程
+		long nodeCount = 0, leaves = 0, qNodes = 0, cutoffs = 0, firstMoveCutoffs = 0, ttProbes = 0, ttHits = 0;
+		long firstMoveMillis = -1;
+		for(int i = 0; i <= helpers.length; i++) {
+			SearchThread t = i == 0 ? main : helpers[i - 1];
+			nodeCount += t.nodeCount;
+			leaves += t.leaves;
+			qNodes += t.qNodes;
+			cutoffs += t.cutoffs;
+			firstMoveCutoffs += t.firstMoveCutoffs;
+			ttProbes += t.ttProbes;
+			ttHits += t.ttHits;
+			if(t.firstMoveMillis >= 0 && (firstMoveMillis < 0 || t.firstMoveMillis < firstMoveMillis)) firstMoveMillis = t.firstMoveMillis;
+		}
+
+		long elapsed = System.currentTimeMillis() - startTime;
+		SearchStats stats = new SearchStats(nodeCount, leaves, qNodes, cutoffs, firstMoveCutoffs, ttProbes, ttHits,
+				best.lastDepth, elapsed, firstMoveMillis < 0 ? elapsed : firstMoveMillis);
+		return new SearchResult(size, best.bestCell, best.score, best.lastDepth, stats, null, false, false);
 	}
-	
-	
+
+	// 没有进行树搜索（空棋盘、开局库、直接成五、威胁空间搜索）的结果
+	private static SearchResult trivialResult(int size, int cell, int score, long startTime, int[] winningLine, boolean bookHit) {
+		long elapsed = System.currentTimeMillis() - startTime;
+		SearchStats stats = new SearchStats(0, 0, 0, 0, 0, 0, 0, 0, elapsed, elapsed);
+		return new SearchResult(size, cell, score, 0, stats, winningLine, bookHit, false);
+	}
+
 	/*
-	 * alpha : AI 的最佳落子 (极大值)
-	 * beta : 玩家的最佳落子 (极小值)
-	 * 返回: {得分, 坐标[0], 坐标[1]}
-	 * */
-	private static Object[] minimaxSearchAB(int depth, Board dummyBoard, boolean max, double alpha, double beta) {
+	 * 为 AI（白棋）先找 VCF，再找 VCT。VCF 与 VCT 共用一份预算，VCT 只能使用 VCF 剩下的部分：
+	 * - 时间：限时搜索时合计不超过 limit / THREAT_TIME_FRACTION
+	 * - 节点：threatNodeLimit；限深搜索按深度折算（深度 d 为 d / THREAT_FULL_DEPTH），浅层难度几乎不增加耗时
+	 */
+	private int[] searchThreatWin(BitBoard searchBoard, SearchLimit limit, SearchContext ctx) {
+		long nodes = threatNodeLimit;
+		long deadline = 0L;
+		if(limit.isTimed()) {
+			deadline = System.currentTimeMillis() + Math.max(1, limit.getTimeMillis() / THREAT_TIME_FRACTION);
+		} else if(limit.getMaxDepth() < THREAT_FULL_DEPTH) {
+			nodes = Math.max(1, nodes * limit.getMaxDepth() / THREAT_FULL_DEPTH);
+		}
+		ThreatSolver solver = new ThreatSolver(new BitBoard(searchBoard));
+		ctx.solver = solver;
+		try {
+			if(ctx.cancelled) return null;
+			long budget = deadline == 0L ? 0L : Math.max(1, deadline - System.currentTimeMillis());
+			if(solver.solve(BitBoard.WHITE, false, ThreatSolver.DEFAULT_VCF_DEPTH, nodes, budget)) {
+				return solver.getWinningLine();
+			}
+			nodes -= solver.getNodeCount();
+			if(nodes <= 0) return null;
+			if(deadline != 0L) {
+				budget = deadline - System.currentTimeMillis();
+				if(budget <= 0) return null;
+			}
+			if(solver.solve(BitBoard.WHITE, true, ThreatSolver.DEFAULT_VCT_DEPTH, nodes, budget)) {
+				return solver.getWinningLine();
+			}
+			return null;
+		} finally {
+			ctx.solver = null;
+		}
+	}
 
-		// 到达最大搜索深度（叶子节点），评估当前棋盘得分。
-		if(depth == 0) {
-			Object[] x = {evaluateBoardForWhite(dummyBoard, !max), null, null};
-			return x;
+	/**
+	 * 一次搜索内所有搜索线程共享的控制状态。每次搜索各有一份，同时进行的搜索互不影响。
+	 */
+	private static final class SearchContext {
+		volatile long deadline;           // System.nanoTime() 截止时间，0 表示不限时
+		// 主线程结束（完成或超时）后置位，辅助线程随即退出
+		volatile boolean stopped;
+		// 外部取消（停止后台思考）：所有线程立即中断
+		volatile boolean cancelled;
+		// 所有线程中已完成的最大深度，辅助线程据此跳到更深的层
+		final AtomicInteger completedDepth = new AtomicInteger();
+		// 正在运行的威胁空间搜索，取消时一并取消
+		volatile ThreatSolver solver;
+
+		void cancel() {
+			cancelled = true;
+			ThreatSolver s = solver;
+			if(s != null) s.cancel();
 		}
-		
-		// 从 Minimax 树的该节点生成所有可能的进一步落子
+	}
+
+	/**
+	 * 单个搜索线程的状态：棋盘副本、杀手着法、历史分、排序缓冲区与统计。
+	 * id 为 0 的是主线程，其余为 Lazy SMP 辅助线程。
+	 */
+	private final class SearchThread {
+		private final int id;
+		private BitBoard board;
+		private SearchContext ctx;
+		private final int[][] killers = new int[MAX_PLY][2];
+		private int[][] history = new int[3][0];
+		private final int[][] orderScores = new int[MAX_PLY][];
+		// 每层预分配的着法缓冲区，生成着法时不分配内存
+		private final int[][] moveBuffers = new int[MAX_PLY][];
+		// 静态搜索每层的着法列表与已加入的格子（按行的位掩码）
+		private final int[][] qMoves = new int[QS_MAX_PLY][];
+		private final int[][] qSeen = new int[QS_MAX_PLY][];
+		// 棋型查询（collectThreatCells）的缓冲区，静态搜索与冲四剪枝共用，用完即弃
+		private int[] threatMask = new int[0];
+		private int[] ownFiveMask = new int[0];
+		private long random;
+
+		private boolean aborted;      // 本轮迭代被中断
+		// 本次搜索的统计，搜索结束后由 think 汇总为 SearchStats
+		private long nodeCount;
+		private long leaves;
+		private long qNodes;           // 静态搜索展开的节点，不计入 nodeCount
+		private int qBudget;           // 当前叶子剩余的静态搜索节点数
+		private long cutoffs;
+		private long firstMoveCutoffs; // 由第一个着法产生的截断
+		private long ttProbes;
+		private long ttHits;
+		private long firstMoveMillis;  // 完成深度 1 的耗时，尚未完成为 -1
+		private int lastDepth;        // 本线程完整完成的深度
+		private int bestCell;         // 最后一轮完整搜索的最佳着法
+		private int score;            // 最后一轮完整搜索的得分
+		private int rootBestMove;     // 当前这一轮根节点的最佳着法
+
+		SearchThread(int id) {
+			this.id = id;
+			this.random = 0x9E3779B97F4A7C15L * (id + 1);
+		}
+
+		// 新搜索开始：清空杀手着法，历史分减半（旧局面的经验逐渐淡化）
+		void prepare(BitBoard searchBoard, SearchContext ctx) {
+			this.board = searchBoard;
+			this.ctx = ctx;
+			aborted = false;
+			nodeCount = 0;
+			leaves = 0;
+			qNodes = 0;
+			cutoffs = 0;
+			firstMoveCutoffs = 0;
+			ttProbes = 0;
+			ttHits = 0;
+			firstMoveMillis = -1;
+			lastDepth = 0;
+			bestCell = TranspositionTable.NO_MOVE;
+			score = 0;
+
+			int cells = searchBoard.getSize() * searchBoard.getSize();
+			if(history[BitBoard.WHITE].length != cells) {
+				history = new int[3][cells];
+			} else {
+				for(int[] h : history) {
+					for(int i = 0; i < h.length; i++) h[i] >>= 1;
+				}
+			}
+			for(int[] k : killers) {
+				k[0] = TranspositionTable.NO_MOVE;
+				k[1] = TranspositionTable.NO_MOVE;
+			}
+			for(int ply = 0; ply < MAX_PLY; ply++) {
+				if(orderScores[ply] == null || orderScores[ply].length < cells) orderScores[ply] = new int[cells];
+				if(moveBuffers[ply] == null || moveBuffers[ply].length < cells) moveBuffers[ply] = new int[cells];
+			}
+			int size = searchBoard.getSize();
+			for(int q = 0; q < QS_MAX_PLY; q++) {
+				if(qMoves[q] == null || qMoves[q].length < cells) qMoves[q] = new int[cells];
+				if(qSeen[q] == null || qSeen[q].length < size) qSeen[q] = new int[size];
+			}
+			if(threatMask.length < size) {
+				threatMask = new int[size];
+				ownFiveMask = new int[size];
+			}
+		}
+
+		// 迭代加深主循环
+		void iterate(SearchLimit limit, long startTime) {
+			// 奇数号辅助线程比主线程深一层开始，错开各线程正在搜索的深度
+			int depth = 1 + (id & 1);
+			while(depth <= limit.getMaxDepth()) {
+				rootBestMove = TranspositionTable.NO_MOVE;
+				int result = aspirationSearch(depth, BitBoard.WHITE, score);
+				if(aborted) break;
+				// 根节点没有可下的位置（棋盘已满）：保留上一轮的着法，没有则仍为 NO_MOVE
+				if(rootBestMove == TranspositionTable.NO_MOVE) break;
+				score = result;
+				bestCell = rootBestMove;
+				lastDepth = depth;
+				if(firstMoveMillis < 0) firstMoveMillis = System.currentTimeMillis() - startTime;
+				ctx.completedDepth.accumulateAndGet(depth, Math::max);
+				// 已找到必胜/必败，无需继续加深
+				if(Math.abs(score) >= MATE_BOUND) break;
+				if(id == 0) {
+					// 剩余时间不足以完成下一轮（下一轮通常耗时远超本轮），提前结束
+					if(limit.isTimed() && System.currentTimeMillis() - startTime > limit.getTimeMillis() / 2) break;
+					depth++;
+				} else {
+					// 辅助线程跳过其他线程已完成的深度
+					depth = Math.max(depth + 1, ctx.completedDepth.get() + 1 + (id & 1));
+				}
+			}
+		}
+
+		// 以上一轮得分 guess 为中心的渴望窗口搜索，失败时放宽窗口重搜
+		private int aspirationSearch(int depth, int color, int guess) {
+			if(depth < 3 || Math.abs(guess) >= MATE_BOUND) {
+				return pvs(depth, 0, color, -INFINITY, INFINITY);
+			}
+			int delta = ASPIRATION_WINDOW;
+			int alpha = guess - delta;
+			int beta = guess + delta;
+			while(true) {
+				int result = pvs(depth, 0, color, alpha, beta);
+				if(aborted) return result;
+				if(result > alpha && result < beta) return result;
+				delta *= 8;
+				if(delta > ASPIRATION_LIMIT) {
+					alpha = -INFINITY;
+					beta = INFINITY;
+				} else if(result <= alpha) {
+					alpha = Math.max(-INFINITY, result - delta);
+				} else {
+					beta = Math.min(INFINITY, result + delta);
+				}
+			}
+		}
+
+		// 检查是否需要停止：主线程已结束、后台思考被停止，或已超时。
+		// 超时只在本线程完成深度 1 后生效，保证有可用着法。
+		private boolean shouldStop() {
+			SearchContext c = ctx;
+			if((c.stopped && id != 0) || c.cancelled) {
+				aborted = true;
+				return true;
+			}
+			long deadline = c.deadline;
+			if(deadline == 0L || lastDepth == 0) return false;
+			if(nodeCount % TIME_CHECK_INTERVAL != 0) return false;
+			if(System.nanoTime() >= deadline) aborted = true;
+			return aborted;
+		}
+
 		/*
-		 *                  (落子 1)
-		 *	               /
-		 *  (当前节点) --- (落子 2)
-		 *				   \   ...
-		 *                  (落子 N)
+		 * 负极大值框架下的主变例搜索（PVS）。
+		 * color : 轮到落子的一方，返回值为该方视角的得分
+		 * alpha/beta : 搜索窗口，beta - alpha == 1 时为零窗口（非主变例节点）
+		 * ply : 距根节点的步数，根节点不使用置换表截断，保证总能返回一个着法
+		 * 第一个着法以完整窗口搜索，其余先用零窗口验证，只有可能更好时才以完整窗口重搜。
+		 * */
+		private int pvs(int depth, int ply, int color, int alpha, int beta) {
+
+			nodeCount++;
+			// 超时或被停止：本轮结果将被丢弃，尽快返回
+			if(aborted || shouldStop()) return 0;
+
+			BitBoard b = board;
+			int opp = color == BitBoard.WHITE ? BitBoard.BLACK : BitBoard.WHITE;
+			// 对手上一步已经成五：当前一方已输
+			if(b.getScore(opp == BitBoard.BLACK, color == BitBoard.BLACK) >= WIN_SCORE) {
+				return -(WIN_SCORE - ply);
+			}
+
+			// 到达最大搜索深度（叶子节点），评估当前棋盘得分。
+			if(depth == 0) {
+				if(quiescence) {
+					qBudget = QS_NODE_LIMIT;
+					return quiesce(ply, 0, color, alpha, beta);
+				}
+				leaves++;
+				return evaluate(b, color);
+			}
+
+			int size = b.getSize();
+			boolean pvNode = beta - alpha > 1;
+
+			// 查询置换表：同一局面（含轮次）若已搜索到足够深度，非主变例节点可直接截断
+			long key = b.getHash() ^ (color == BitBoard.BLACK ? BitBoard.SIDE_KEY : 0L);
+			int ttMove = TranspositionTable.NO_MOVE;
+			long entry = tt.probe(key);
+			ttProbes++;
+			if(entry != 0L) {
+				ttHits++;
+				ttMove = TranspositionTable.getMove(entry);
+				if(ply > 0 && !pvNode && TranspositionTable.getDepth(entry) >= depth) {
+					int ttScore = scoreFromTT(TranspositionTable.getScore(entry), ply);
+					int flag = TranspositionTable.getFlag(entry);
+					if(flag == TranspositionTable.EXACT
+							|| (flag == TranspositionTable.LOWER && ttScore >= beta)
+							|| (flag == TranspositionTable.UPPER && ttScore <= alpha)) {
+						return ttScore;
+					}
+				}
+			}
+
+			// 候选点以格子编号 (行*n+列) 表示
+			int[] moves = moveBuffers[ply];
+			int moveCount = b.generateMoves(moves);
+			// 棋盘已满：和棋
+			if(moveCount == 0) return 0;
+			int generated = moveCount;
+			if(fourPruning) moveCount = keepForcedMoves(moves, moveCount, color, opp);
+			boolean forced = moveCount < generated;
+
+			// 着法排序：置换表着法最先，随后是威胁、杀手与历史分高的着法
+			scoreMoves(moves, moveCount, ply, ttMove, color);
+			int[] scores = orderScores[ply];
+
+			// 无望剪枝：静态评估加上余量仍达不到 alpha，普通着法几乎不可能改善结果
+			boolean futile = futilityPruning && !pvNode && !forced && depth <= FUTILITY_MAX_DEPTH
+					&& Math.abs(alpha) < MATE_BOUND && evaluate(b, color) + FUTILITY_MARGIN * depth <= alpha;
+
+			int alphaOrig = alpha;
+			int best = -INFINITY;
+			int bestMove = TranspositionTable.NO_MOVE;
+			for(int i = 0; i < moveCount; i++) {
+				int cell = pickMove(moves, scores, i, moveCount);
+				int row = cell / size;
+				int col = cell % size;
+				// 普通着法：不是置换表着法、威胁着法或杀手着法；着法按得分降序取出，之后的也都是普通着法
+				boolean quiet = scores[i] < KILLER_BONUS;
+				if(futile && quiet && i > 0) break;
+				// 是否可以缩减：对方在该点的棋型增量须在落子前计算
+				boolean reducible = lateMoveReduction && quiet && !forced && depth >= LMR_MIN_DEPTH && i >= LMR_MIN_MOVES
+						&& b.moveGain(row, col, opp, GAIN_CAP) < LMR_DEFENSE_GAIN;
+
+				b.place(row, col, color);
+				int value;
+				if(i == 0) {
+					value = -pvs(depth - 1, ply + 1, opp, -beta, -alpha);
+				} else {
+					int reduction = 0;
+					if(reducible) {
+						reduction = i >= LMR_DEEP_MOVES && depth > LMR_MIN_DEPTH ? 2 : 1;
+					}
+					// 零窗口验证该着法是否可能优于当前最佳；缩减的搜索超过 alpha 时以全深度重新验证
+					value = -pvs(depth - 1 - reduction, ply + 1, opp, -alpha - 1, -alpha);
+					if(reduction > 0 && value > alpha) {
+						value = -pvs(depth - 1, ply + 1, opp, -alpha - 1, -alpha);
+					}
+					if(value > alpha && value < beta) {
+						value = -pvs(depth - 1, ply + 1, opp, -beta, -alpha);
+					}
+				}
+				b.remove(row, col);
+				// 子树被中断，结果不可靠，不再继续也不写入置换表
+				if(aborted) return 0;
+
+				if(value > best) {
+					best = value;
+					bestMove = cell;
+					if(ply == 0) rootBestMove = cell;
+				}
+				if(value > alpha) alpha = value;
+				if(alpha >= beta) {
+					cutoffs++;
+					if(i == 0) firstMoveCutoffs++;
+					recordCutoff(ply, cell, color, depth, scores[i]);
+					break;
+				}
+			}
+
+			int flag = best >= beta ? TranspositionTable.LOWER
+					: best <= alphaOrig ? TranspositionTable.UPPER : TranspositionTable.EXACT;
+			tt.store(key, depth, flag, scoreToTT(best, ply), bestMove);
+			return best;
+		}
+
+		/*
+		 * 冲四剪枝：对方有成五点时，不去堵的着法都会立即输棋。
+		 * 己方能直接成五则只保留成五点，否则只保留对方的成五点，返回保留的着法数。
+		 * 对方的棋型得分低于门槛（没有连续的冲四/活三）时不扫描棋盘；跳空的冲四不在门槛内，此时照常搜索全部着法。
 		 */
-		ArrayList<int[]> allPossibleMoves = dummyBoard.generateMoves();
-		
-		// 如果没有剩下的空位，将此节点视为叶子节点并返回得分。
-		if(allPossibleMoves.size() == 0) {
-			Object[] x = {evaluateBoardForWhite(dummyBoard, !max), null, null};
-			return x;
+		private int keepForcedMoves(int[] moves, int moveCount, int color, int opp) {
+			BitBoard b = board;
+			boolean blacksTurn = color == BitBoard.BLACK;
+			if(b.getScore(!blacksTurn, blacksTurn) < QS_OPP_THREAT) return moveCount;
+			int[] mask = threatMask;
+			if(b.collectThreatCells(opp, BitBoard.FIVE, mask) == 0) return moveCount;
+			if(b.collectThreatCells(color, BitBoard.FIVE, ownFiveMask) > 0) mask = ownFiveMask;
+			int size = b.getSize();
+			int kept = 0;
+			for(int i = 0; i < moveCount; i++) {
+				int cell = moves[i];
+				if((mask[cell / size] & (1 << (cell % size))) != 0) moves[kept++] = cell;
+			}
+			// 候选点总是包含与棋子相邻的格子，成五点一定在其中；防御性地保留原列表
+			return kept == 0 ? moveCount : kept;
 		}
-		
-		Object[] bestMove = new Object[3];
-		
-		// 生成 Minimax 树并计算各节点的分数。
-		if(max) {
-			// 用负无穷初始化初始最佳步的分数。
-			bestMove[0] = -1.0;
-			// 遍历所有可能的落子位置。
-			for(int[] move : allPossibleMoves) {
-
-				// 在模拟棋盘上模拟落子，不触发真实 GUI 绘制
-				dummyBoard.addStoneNoGUI(move[1], move[0], false);
-				
-				// 针对下一深度调用 Minimax 函数，寻找极小值分。
-				// 该函数从该节点递归生成新的 Minimax 分支树（若深度 > 0），
-				// 并搜索每个子树中的最低得分。
-				// 我们将选取更低层深度中最小得分中的最大值。
-				Object[] tempMove = minimaxSearchAB(depth-1, dummyBoard, false, alpha, beta);
-
-				// 回溯：移除模拟落子
-				dummyBoard.removeStoneNoGUI(move[1],move[0]);
-
-				// 更新 alpha（alpha 持有当前找到的最大分值）
-				// 在寻找极小值时，如果子节点得分低于 alpha（上一层极大节点的极大值），
-				// 则可以剪掉该子树，因为极大值玩家绝不会选择比 alpha 更低的节点。
-				if((Double)(tempMove[0]) > alpha) {
-					alpha = (Double)(tempMove[0]);
-				}
-				// Beta 剪枝
-				// Beta 持有一层之上极小节点的当前最小值。
-				// 如果当前分数高于 beta，我们可以停止搜索，因为极小值玩家（上一层）
-				// 绝不会让局势发展到比 beta 更糟糕的分支。
-				if((Double)(tempMove[0]) >= beta) {
-					return tempMove;
+
+		/*
+		 * 静态搜索：主搜索的叶子上只展开强制着法，局面平静后再静态评估。
+		 * - 己方有成五点：直接取胜
+		 * - 对方有成五点：只能去堵（两个以上则必败），不能以静态评估作为下限
+		 * - 双方棋型得分都低于门槛时局面平静，直接静态评估（增量得分 O(1)，省去全盘扫描）
+		 * - 否则以静态评估为下限（stand pat），依次展开己方成四、堵对方活三、己方成活三的着法
+		 * 层数与节点数受 QS_MAX_PLY、QS_NODE_LIMIT 限制，用完后直接静态评估。
+		 * qply : 静态搜索内的层数，ply 仍为距根节点的步数（用于必胜分）
+		 */
+		private int quiesce(int ply, int qply, int color, int alpha, int beta) {
+			BitBoard b = board;
+			boolean blacksTurn = color == BitBoard.BLACK;
+			if(b.getScore(blacksTurn, blacksTurn) < QS_OWN_THREAT && b.getScore(!blacksTurn, blacksTurn) < QS_OPP_THREAT) {
+				leaves++;
+				return evaluate(b, color);
+			}
+			int opp = color == BitBoard.WHITE ? BitBoard.BLACK : BitBoard.WHITE;
+			int[] mask = threatMask;
+			if(b.collectThreatCells(color, BitBoard.FIVE, mask) > 0) return WIN_SCORE - (ply + 1);
+			int oppFives = b.collectThreatCells(opp, BitBoard.FIVE, mask);
+			if(oppFives >= 2) return -(WIN_SCORE - (ply + 2));
+
+			boolean exhausted = qply >= QS_MAX_PLY || qBudget <= 0;
+			int[] moves = exhausted ? null : qMoves[qply];
+			int[] seen = exhausted ? null : qSeen[qply];
+			int count = 0;
+			int best;
+			if(oppFives == 1) {
+				if(exhausted) {
+					leaves++;
+					return evaluate(b, color);
 				}
+				java.util.Arrays.fill(seen, 0);
+				count = appendCells(mask, seen, moves, 0);
+				best = -INFINITY;
+			} else {
+				leaves++;
+				best = evaluate(b, color);
+				if(best >= beta || exhausted) return best;
+				if(best > alpha) alpha = best;
+				java.util.Arrays.fill(seen, 0);
+				if(b.collectThreatCells(color, BitBoard.FOUR, mask) > 0) count = appendCells(mask, seen, moves, count);
+				if(b.collectThreatCells(opp, BitBoard.THREE_DEFENSE, mask) > 0) count = appendCells(mask, seen, moves, count);
+				if(b.collectThreatCells(color, BitBoard.THREE, mask) > 0) count = appendCells(mask, seen, moves, count);
+			}
 
-				// 找到具有最高分的落子。
-				if((Double)tempMove[0] > (Double)bestMove[0]) {
-					bestMove = tempMove;
-					bestMove[1] = move[0];
-					bestMove[2] = move[1];
+			int size = b.getSize();
+			for(int i = 0; i < count && qBudget > 0; i++) {
+				int cell = moves[i];
+				int row = cell / size;
+				int col = cell % size;
+				qNodes++;
+				qBudget--;
+				b.place(row, col, color);
+				int value = -quiesce(ply + 1, qply + 1, opp, -beta, -alpha);
+				b.remove(row, col);
+				if(value > best) {
+					best = value;
+					if(value > alpha) alpha = value;
+					if(alpha >= beta) break;
 				}
 			}
+			return best;
 		}
-		else {
-			// 用正无穷初始化初始最佳步的分数。
-			bestMove[0] = 100_000_000.0;
-			bestMove[1] = allPossibleMoves.get(0)[0];
-			bestMove[2] = allPossibleMoves.get(0)[1];
-			
-			// 遍历所有可能的落子位置。
-			for(int[] move : allPossibleMoves) {
-
-				// 模拟落子
-				dummyBoard.addStoneNoGUI(move[1], move[0], true);
-				
-				// 针对下一深度调用 Minimax 函数，寻找极大值分。
-				Object[] tempMove = minimaxSearchAB(depth-1, dummyBoard, true, alpha, beta);
-
-				// 回溯
-				dummyBoard.removeStoneNoGUI(move[1],move[0]);
-				
-				// 更新 beta（beta 持有当前找到的最小分值）
-				if(((Double)tempMove[0]) < beta) {
-					beta = (Double)(tempMove[0]);
+
+		// 把位掩码 mask（按行）中尚未加入的格子追加到 list，返回新的长度
+		private int appendCells(int[] mask, int[] seen, int[] list, int count) {
+			int size = board.getSize();
+			for(int r = 0; r < size; r++) {
+				int bits = mask[r] & ~seen[r];
+				seen[r] |= bits;
+				while(bits != 0) {
+					int c = Integer.numberOfTrailingZeros(bits);
+					bits &= bits - 1;
+					list[count++] = r * size + c;
 				}
-				// Alpha 剪枝
-				if((Double)(tempMove[0]) <= alpha) {
-					return tempMove;
+			}
+			return count;
+		}
+
+		// 为当前节点的候选着法打分，结果存入 orderScores[ply]
+		private void scoreMoves(int[] moves, int moveCount, int ply, int ttMove, int color) {
+			BitBoard b = board;
+			int[] scores = orderScores[ply];
+			int size = b.getSize();
+			int opp = color == BitBoard.WHITE ? BitBoard.BLACK : BitBoard.WHITE;
+			for(int i = 0; i < moveCount; i++) {
+				int cell = moves[i];
+				if(cell == ttMove) {
+					scores[i] = TT_MOVE_SCORE;
+				} else if(!moveOrdering) {
+					// 保持生成顺序
+					scores[i] = -i;
+				} else {
+					int row = cell / size;
+					int col = cell % size;
+					// 进攻价值加倍：自己成五/成四优先于堵对方
+					int attack = b.moveGain(row, col, color, GAIN_CAP);
+					int defense = b.moveGain(row, col, opp, GAIN_CAP);
+					int staticScore = 2 * attack + defense;
+					if(staticScore >= THREAT_SCORE) scores[i] = THREAT_BONUS + staticScore;
+					else if(cell == killers[ply][0]) scores[i] = KILLER_BONUS + 1;
+					else if(cell == killers[ply][1]) scores[i] = KILLER_BONUS;
+					else scores[i] = staticScore + history[color][cell] + noise();
 				}
-				
-				// 找到具有最低分的落子。
-				if((Double)tempMove[0] < (Double)bestMove[0]) {
-					bestMove = tempMove;
-					bestMove[1] = move[0];
-					bestMove[2] = move[1];
+			}
+		}
+
+		// 辅助线程的排序扰动（xorshift 随机数），主线程为 0
+		private int noise() {
+			if(id == 0) return 0;
+			random ^= random << 13;
+			random ^= random >>> 7;
+			random ^= random << 17;
+			return (int) ((random >>> 1) % ORDER_NOISE);
+		}
+
+		// 非威胁着法产生截断时，记为杀手着法并累加历史分
+		private void recordCutoff(int ply, int cell, int color, int depth, int orderScore) {
+			if(orderScore >= THREAT_BONUS) return;
+			if(killers[ply][0] != cell) {
+				killers[ply][1] = killers[ply][0];
+				killers[ply][0] = cell;
+			}
+			int[] h = history[color];
+			h[cell] += depth * depth;
+			if(h[cell] > HISTORY_LIMIT) {
+				for(int[] table : history) {
+					for(int i = 0; i < table.length; i++) table[i] >>= 1;
 				}
 			}
 		}
-		return bestMove;
+	}
+
+	// 选择排序的一步：把 [i, n) 中得分最高的着法换到位置 i 并返回
+	private static int pickMove(int[] moves, int[] scores, int i, int n) {
+		int best = i;
+		for(int j = i + 1; j < n; j++) {
+			if(scores[j] > scores[best]) best = j;
+		}
+		if(best != i) {
+			int m = moves[i]; moves[i] = moves[best]; moves[best] = m;
+			int sc = scores[i]; scores[i] = scores[best]; scores[best] = sc;
+		}
+		return moves[i];
+	}
+
+	// 置换表中的必胜分按“距当前节点的步数”保存，读写时按 ply 换算
+	private static int scoreToTT(int score, int ply) {
+		if(score >= MATE_BOUND) return score + ply;
+		if(score <= -MATE_BOUND) return score - ply;
+		return score;
+	}
+
+	private static int scoreFromTT(int score, int ply) {
+		if(score >= MATE_BOUND) return score - ply;
+		if(score <= -MATE_BOUND) return score + ply;
+		return score;
 	}
 	
-	// 此函数寻找一个可以直接获胜的位置。
-	private static Object[] searchWinningMove(Board board) {
-		ArrayList<int[]> allPossibleMoves = board.generateMoves();
-		Object[] winningMove = new Object[3];
+	// 此函数寻找一个可以直接获胜的位置，返回格子编号，没有则返回 NO_MOVE。
+	int searchWinningMove(BitBoard board) {
+		int size = board.getSize();
+		// 局部缓冲区：可能有多个搜索同时调用
+		int[] rootMoves = new int[size * size];
+		int count = board.generateMoves(rootMoves);
 		
 		// 遍历所有可能的落子
-		for(int[] move : allPossibleMoves) {
-			evaluationCount++;
-			// 创建模拟棋盘
-			Board dummyBoard = new Board(board);
+		for(int i = 0; i < count; i++) {
+			int cell = rootMoves[i];
+			int row = cell / size;
+			int col = cell % size;
 			// 模拟落子
-			dummyBoard.addStoneNoGUI(move[1], move[0], false);
+			board.place(row, col, BitBoard.WHITE);
+			boolean win = board.getScore(false, false) >= WIN_SCORE;
+			board.remove(row, col);
 			
-			// 如果在模拟棋盘上白棋获得了赢棋分，则返回该步。
-			if(getScore(dummyBoard,false,false) >= WIN_SCORE) {
-				winningMove[1] = move[0];
-				winningMove[2] = move[1];
-				return winningMove;
-			}
+			// 如果白棋获得了赢棋分，则返回该步。
+			if(win) return cell;
 		}
-		return null;
+		return TranspositionTable.NO_MOVE;
 	}
 
 	// 该函数通过评估水平方向的棋子分布来计算分值。
+	// 每条线先转换为双方的位掩码，再按连子串及两端的阻碍计分（BitBoard.lineScore），不分配临时数组。
+	// 一串连续的棋子两端被对手或棋盘边缘阻挡的个数记为 blocks（0~2），见 getConsecutiveSetScore。
 	public static int evaluateHorizontal(int[][] boardMatrix, boolean forBlack, boolean playersTurn ) {
-
-		int[] evaluations = {0, 2, 0}; // [0] -> 连续个数, [1] -> 阻碍个数, [2] -> 得分
-		// blocks 变量用于检查一串连续的棋子是否被对手或棋盘边缘阻挡。
-		// 如果两端都被阻挡，blocks 为 2。
-		// 如果只有一端被阻挡，blocks 为 1；如果两端都空闲，blocks 为 0。
-		// 系统默认第一列左侧是被棋盘边缘阻挡的。
+		int n = boardMatrix.length;
+		int score = 0;
 		// 遍历所有行
-		for(int i=0; i<boardMatrix.length; i++) {
-			// 遍历行内的所有单元格
-			for(int j=0; j<boardMatrix[0].length; j++) {
-				// 检查所选玩家是否在当前格有子
-				evaluateDirections(boardMatrix,i,j,forBlack,playersTurn,evaluations);
+		for(int i=0; i<n; i++) {
+			int own = 0;
+			int opp = 0;
+			for(int j=0; j<n; j++) {
+				int stone = stoneSide(boardMatrix[i][j], forBlack);
+				if(stone > 0) own |= 1 << j;
+				else if(stone < 0) opp |= 1 << j;
 			}
-			evaluateDirectionsAfterOnePass(evaluations, forBlack, playersTurn);
+			score += BitBoard.lineScore(own, opp, n, forBlack == playersTurn);
 		}
-
-		return evaluations[2];
+		return score;
 	}
 	
 	// 在垂直方向同理评估。
 	public static  int evaluateVertical(int[][] boardMatrix, boolean forBlack, boolean playersTurn ) {
-
-		int[] evaluations = {0, 2, 0}; 
-		
-		for(int j=0; j<boardMatrix[0].length; j++) {
-			for(int i=0; i<boardMatrix.length; i++) {
-				evaluateDirections(boardMatrix,i,j,forBlack,playersTurn,evaluations);
+		int n = boardMatrix.length;
+		int score = 0;
+		for(int j=0; j<n; j++) {
+			int own = 0;
+			int opp = 0;
+			for(int i=0; i<n; i++) {
+				int stone = stoneSide(boardMatrix[i][j], forBlack);
+				if(stone > 0) own |= 1 << i;
+				else if(stone < 0) opp |= 1 << i;
 			}
-			evaluateDirectionsAfterOnePass(evaluations,forBlack,playersTurn);
-			
+			score += BitBoard.lineScore(own, opp, n, forBlack == playersTurn);
 		}
-		return evaluations[2];
+		return score;
 	}
 
 	// 在对角线方向同理评估。
 	public static  int evaluateDiagonal(int[][] boardMatrix, boolean forBlack, boolean playersTurn ) {
-
-		int[] evaluations = {0, 2, 0}; 
+		int n = boardMatrix.length;
+		int score = 0;
 		// 从左下到右上
-		for (int k = 0; k <= 2 * (boardMatrix.length - 1); k++) {
-		    int iStart = Math.max(0, k - boardMatrix.length + 1);
-		    int iEnd = Math.min(boardMatrix.length - 1, k);
+		for (int k = 0; k <= 2 * (n - 1); k++) {
+		    int iStart = Math.max(0, k - n + 1);
+		    int iEnd = Math.min(n - 1, k);
+		    int own = 0;
+		    int opp = 0;
 		    for (int i = iStart; i <= iEnd; ++i) {
-		        evaluateDirections(boardMatrix,i,k-i,forBlack,playersTurn,evaluations);
+		        int stone = stoneSide(boardMatrix[i][k - i], forBlack);
+		        if(stone > 0) own |= 1 << (i - iStart);
+		        else if(stone < 0) opp |= 1 << (i - iStart);
 		    }
-		    evaluateDirectionsAfterOnePass(evaluations,forBlack,playersTurn);
+		    score += BitBoard.lineScore(own, opp, iEnd - iStart + 1, forBlack == playersTurn);
 		}
 		// 从左上到右下
-		for (int k = 1-boardMatrix.length; k < boardMatrix.length; k++) {
+		for (int k = 1 - n; k < n; k++) {
 		    int iStart = Math.max(0, k);
-		    int iEnd = Math.min(boardMatrix.length + k - 1, boardMatrix.length-1);
+		    int iEnd = Math.min(n + k - 1, n - 1);
+		    int own = 0;
+		    int opp = 0;
 		    for (int i = iStart; i <= iEnd; ++i) {
-				evaluateDirections(boardMatrix,i,i-k,forBlack,playersTurn,evaluations);
+		        int stone = stoneSide(boardMatrix[i][i - k], forBlack);
+		        if(stone > 0) own |= 1 << (i - iStart);
+		        else if(stone < 0) opp |= 1 << (i - iStart);
 		    }
-			evaluateDirectionsAfterOnePass(evaluations,forBlack,playersTurn);
-		}
-		return evaluations[2];
-	}
-	public static void evaluateDirections(int[][] boardMatrix, int i, int j, boolean isBot, boolean botsTurn, int[] eval) {
-		// 检查玩家是否在该格有子
-		if (boardMatrix[i][j] == (isBot ? 2 : 1)) {
-			// 增加连续棋子计数
-			eval[0]++;
-		}
-		// 如果是空位
-		else if (boardMatrix[i][j] == 0) {
-			// 检查之前是否有连续的棋子
-			if (eval[0] > 0) {
-				// 该方向之前有棋子，且当前位置是空的，减少一端阻碍
-				eval[1]--;
-				// 计算得分
-				eval[2] += getConsecutiveSetScore(eval[0], eval[1], isBot == botsTurn);
-				// 重置计数
-				eval[0] = 0;
-			}
-			// 下一个连续棋子串最多只有一侧被阻碍
-			eval[1] = 1;
-		}
-		// 单元格被对手占据
-		else if (eval[0] > 0) {
-			// 计算之前连续棋子的得分
-			eval[2] += getConsecutiveSetScore(eval[0], eval[1], isBot == botsTurn);
-			// 重置计数
-			eval[0] = 0;
-			// 当前位置被对手占据，因此下一个串可能在此端被阻碍
-			eval[1] = 2;
-		} else {
-			eval[1] = 2;
+		    score += BitBoard.lineScore(own, opp, iEnd - iStart + 1, forBlack == playersTurn);
 		}
+		return score;
 	}
-	private static void evaluateDirectionsAfterOnePass(int[] eval, boolean isBot, boolean playersTurn) {
-		// 读到行末，检查是否有未结算的连子（右侧/下侧边缘算阻碍）
-		if (eval[0] > 0) {
-			eval[2] += getConsecutiveSetScore(eval[0], eval[1], isBot == playersTurn);
-		}
-		// 面向下一行/列重置状态
-		eval[0] = 0;
-		eval[1] = 2;
+
+	// 1 表示该格是 forBlack 一方的棋子，-1 表示对手的棋子，0 表示空位
+	private static int stoneSide(int cell, boolean forBlack) {
+		if(cell == 0) return 0;
+		return cell == (forBlack ? 2 : 1) ? 1 : -1;
 	}
 
 	// 此函数返回给定连续棋子集的评分分数。
@@ -0,0 +1,282 @@
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * NNUE 风格的神经网络评估（纯 CPU，整数运算），可替代手工棋型评估。
+ *
+ * 输入特征（每个视角各一套，"己方"指该视角的颜色）：
+ * - 窗口特征：棋盘上每个五格窗口（四个方向）若只含一方棋子，按棋子分布（5 位掩码）计一个特征，
+ *   己方 1..31，对方 32..62；空窗口和双方混杂的窗口（不可能成五）不计
+ * - 棋子特征：63 + 格子编号（己方棋子）、63 + n*n + 格子编号（对方棋子）
+ * 网络结构：特征 -> H 个 int16 累加器（两个视角各一份）-> 截断 ReLU 后拼接（轮到的一方在前）
+ *   -> L2 个 int8 权重的隐藏单元 -> 截断 ReLU -> int8 权重的输出。
+ * 第一层是增量更新的：落子/提子只改变经过该格的至多 20 个窗口和一个棋子特征，
+ * BitBoard 每次落子只需对累加器做几十次向量加减，评估时只计算后两层。
+ *
+ * 量化：累加器与激活值以 127 表示 1.0，第二层和输出层权重以 64 表示 1.0。
+ * 输出为轮到的一方胜率的 logit，乘以 EVAL_SCALE 换算为与手工评估相近的分值。
+ *
+ * 文件格式（大端）：魔数 "GNN1"、棋盘大小、H、L2，随后依次为
+ *   short 第一层权重 [特征数][H]、short 第一层偏置 [H]、
+ *   byte 第二层权重 [L2][2H]、int 第二层偏置 [L2]、byte 输出权重 [L2]、int 输出偏置。
+ * 权重由 NnueTrainer 离线训练生成。
+ */
+public class Nnue {
+
+	public static final String DEFAULT_PATH = "assets/nnue.bin";
+
+	static final int MAGIC = 0x474E4E31; // "GNN1"
+	// 累加器/激活值的量化系数（1.0 -> 127）
+	static final int QA = 127;
+	// 第二层与输出层权重的量化系数（1.0 -> 64）
+	static final int QB = 64;
+	static final int QB_SHIFT = 6;
+	// 输出 logit 到评估分值的换算系数，训练标签用同一系数把手工评估压缩为胜率
+	public static final int EVAL_SCALE = 20_000;
+	// 窗口特征数（含不使用的 0 号）
+	static final int PATTERN_FEATURES = 63;
+
+	private final int boardSize;
+	private final int hidden;
+	private final int l2;
+	final short[] featureWeights; // [特征][H]
+	final short[] featureBias;    // [H]
+	private final byte[] l2Weights;    // [L2][2H]
+	private final int[] l2Bias;
+	private final byte[] outWeights;   // [L2]
+	private final int outBias;
+
+	private static Nnue defaultNet;
+	private static boolean defaultLoaded;
+
+	Nnue(int boardSize, int hidden, int l2, short[] featureWeights, short[] featureBias,
+			byte[] l2Weights, int[] l2Bias, byte[] outWeights, int outBias) {
+		this.boardSize = boardSize;
+		this.hidden = hidden;
+		this.l2 = l2;
+		this.featureWeights = featureWeights;
+		this.featureBias = featureBias;
+		this.l2Weights = l2Weights;
+		this.l2Bias = l2Bias;
+		this.outWeights = outWeights;
+		this.outBias = outBias;
+	}
+
+	/** 读取权重文件 */
+	public static Nnue load(Path path) throws IOException {
+		ByteBuffer data = ByteBuffer.wrap(Files.readAllBytes(path));
+		if (data.remaining() < 16 || data.getInt() != MAGIC) {
+			throw new IOException("不是有效的神经网络权重文件");
+		}
+		int n = data.getInt();
+		int hidden = data.getInt();
+		int l2 = data.getInt();
+		if (n < 5 || n > 31 || hidden <= 0 || l2 <= 0) throw new IOException("神经网络权重文件头无效");
+		int features = featureCount(n);
+		long expected = 16L + 2L * features * hidden + 2L * hidden + (long) l2 * 2 * hidden + 4L * l2 + l2 + 4;
+		if (data.capacity() != expected) throw new IOException("神经网络权重文件大小不符");
+
+		short[] featureWeights = new short[features * hidden];
+		data.asShortBuffer().get(featureWeights);
+		data.position(data.position() + 2 * featureWeights.length);
+		short[] featureBias = new short[hidden];
+		data.asShortBuffer().get(featureBias);
+		data.position(data.position() + 2 * hidden);
+		byte[] l2Weights = new byte[l2 * 2 * hidden];
+		data.get(l2Weights);
+		int[] l2Bias = new int[l2];
+		for (int j = 0; j < l2; j++) l2Bias[j] = data.getInt();
+		byte[] outWeights = new byte[l2];
+		data.get(outWeights);
+		int outBias = data.getInt();
+		return new Nnue(n, hidden, l2, featureWeights, featureBias, l2Weights, l2Bias, outWeights, outBias);
+	}
+
+	/** 默认权重（assets/nnue.bin），进程内只加载一次；文件不存在时返回 null（使用手工评估） */
+	public static synchronized Nnue getDefault() {
+		if (!defaultLoaded) {
+			defaultLoaded = true;
+			Path path = Paths.get(DEFAULT_PATH);
+			if (Files.isRegularFile(path)) {
+				try {
+					defaultNet = load(path);
+					System.out.println("已加载神经网络评估: " + path);
+				} catch (IOException e) {
+					System.out.println("神经网络评估加载失败: " + e.getMessage());
+				}
+			}
+		}
+		return defaultNet;
+	}
+
+	/** 写出权重文件 */
+	void write(Path path) throws IOException {
+		try (DataOutputStream out = new DataOutputStream(new java.io.BufferedOutputStream(Files.newOutputStream(path)))) {
+			out.writeInt(MAGIC);
+			out.writeInt(boardSize);
+			out.writeInt(hidden);
+			out.writeInt(l2);
+			for (short w : featureWeights) out.writeShort(w);
+			for (short b : featureBias) out.writeShort(b);
+			out.write(l2Weights);
+			for (int b : l2Bias) out.writeInt(b);
+			out.write(outWeights);
+			out.writeInt(outBias);
+		}
+	}
+
+	public int getBoardSize() {
+		return boardSize;
+	}
+
+	static int featureCount(int n) {
+		return PATTERN_FEATURES + 2 * n * n;
+	}
+
+	// 五格窗口的特征：白方/黑方视角各一个，返回 (白视角 << 8) | 黑视角；不计的窗口返回 0
+	static int windowFeatures(int white5, int black5) {
+		if ((white5 == 0) == (black5 == 0)) return 0;
+		return white5 != 0 ? (white5 << 8) | (31 + white5) : ((31 + black5) << 8) | black5;
+	}
+
+	/**
+	 * 从头统计 perspective 视角下各特征出现的次数（counts 长度为特征数）。
+	 * 累加器刷新和离线训练使用；搜索中由 BitBoard 增量维护。
+	 */
+	static void countFeatures(BitBoard board, int perspective, int[] counts) {
+		int n = board.getSize();
+		java.util.Arrays.fill(counts, 0);
+		int[][] dirs = {{0, 1}, {1, 0}, {1, 1}, {1, -1}};
+		for (int[] d : dirs) {
+			for (int row = 0; row < n; row++) {
+				for (int col = 0; col < n; col++) {
+					int endRow = row + 4 * d[0];
+					int endCol = col + 4 * d[1];
+					if (endRow >= n || endCol < 0 || endCol >= n) continue;
+					int own = 0;
+					int opp = 0;
+					for (int k = 0; k < 5; k++) {
+						int stone = board.get(row + k * d[0], col + k * d[1]);
+						if (stone == perspective) own |= 1 << k;
+						else if (stone != BitBoard.EMPTY) opp |= 1 << k;
+					}
+					int f = windowFeatures(own, opp) >>> 8;
+					if (f != 0) counts[f]++;
+				}
+			}
+		}
+		for (int cell = 0; cell < n * n; cell++) {
+			int stone = board.get(cell / n, cell % n);
+			if (stone == perspective) counts[PATTERN_FEATURES + cell]++;
+			else if (stone != BitBoard.EMPTY) counts[PATTERN_FEATURES + n * n + cell]++;
+		}
+	}
+
+	/** 为 BitBoard 创建一个与之绑定的累加器 */
+	Accumulator newAccumulator() {
+		return new Accumulator(this);
+	}
+
+	/**
+	 * 第一层累加器：white/black 分别为白方、黑方视角的 H 个 int16。
+	 * 由 BitBoard 在落子/提子时调用 window/stone 增量更新；每个 BitBoard 各有一份，不能在线程间共享。
+	 */
+	static final class Accumulator {
+		private final Nnue net;
+		private final short[] white;
+		private final short[] black;
+		// 评估时的隐藏层输入（截断后的激活值），避免每次分配
+		private final int[] input;
+
+		Accumulator(Nnue net) {
+			this.net = net;
+			this.white = net.featureBias.clone();
+			this.black = net.featureBias.clone();
+			this.input = new int[2 * net.hidden];
+		}
+
+		Accumulator(Accumulator other) {
+			this.net = other.net;
+			this.white = other.white.clone();
+			this.black = other.black.clone();
+			this.input = new int[other.input.length];
+		}
+
+		Nnue getNet() {
+			return net;
+		}
+
+		// 按棋盘当前棋子从头计算
+		void refresh(BitBoard board) {
+			int[] counts = new int[featureCount(net.boardSize)];
+			countFeatures(board, BitBoard.WHITE, counts);
+			fill(white, counts);
+			countFeatures(board, BitBoard.BLACK, counts);
+			fill(black, counts);
+		}
+
+		private void fill(short[] acc, int[] counts) {
+			int h = net.hidden;
+			System.arraycopy(net.featureBias, 0, acc, 0, h);
+			for (int f = 0; f < counts.length; f++) {
+				int c = counts[f];
+				if (c == 0) continue;
+				int off = f * h;
+				for (int i = 0; i < h; i++) acc[i] += c * net.featureWeights[off + i];
+			}
+		}
+
+		// 一个五格窗口（white5/black5 为双方在窗口内的棋子掩码）加入(sign>0)或移出累加器
+		void window(int white5, int black5, int sign) {
+			int features = windowFeatures(white5, black5);
+			if (features == 0) return;
+			apply(white, features >>> 8, sign);
+			apply(black, features & 0xFF, sign);
+		}
+
+		// color 方在 cell 的棋子加入(sign>0)或移出累加器
+		void stone(int color, int cell, int sign) {
+			int nn = net.boardSize * net.boardSize;
+			apply(white, PATTERN_FEATURES + (color == BitBoard.WHITE ? 0 : nn) + cell, sign);
+			apply(black, PATTERN_FEATURES + (color == BitBoard.BLACK ? 0 : nn) + cell, sign);
+		}
+
+		private void apply(short[] acc, int feature, int sign) {
+			short[] w = net.featureWeights;
+			int h = net.hidden;
+			int off = feature * h;
+			if (sign > 0) {
+				for (int i = 0; i < h; i++) acc[i] += w[off + i];
+			} else {
+				for (int i = 0; i < h; i++) acc[i] -= w[off + i];
+			}
+		}
+
+		/** 轮到 color 方时该方视角的评估分值 */
+		int evaluate(int color) {
+			int h = net.hidden;
+			short[] us = color == BitBoard.WHITE ? white : black;
+			short[] them = color == BitBoard.WHITE ? black : white;
+			for (int i = 0; i < h; i++) {
+				input[i] = clip(us[i]);
+				input[h + i] = clip(them[i]);
+			}
+			byte[] w2 = net.l2Weights;
+			long out = net.outBias;
+			for (int j = 0, off = 0; j < net.l2; j++, off += 2 * h) {
+				int sum = net.l2Bias[j];
+				for (int k = 0; k < 2 * h; k++) sum += input[k] * w2[off + k];
+				out += clip(sum >> QB_SHIFT) * net.outWeights[j];
+			}
+			return (int) (out * EVAL_SCALE / (QA * QB));
+		}
+
+		private static int clip(int x) {
+			return x < 0 ? 0 : Math.min(x, QA);
+		}
+	}
+}
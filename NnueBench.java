@@ -0,0 +1,143 @@
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.SplittableRandom;
+
+/**
+ * 神经网络评估与手工棋型评估的对比基准：
+ * 1. 校验：随机落子/提子后，增量维护的累加器与从头计算的结果一致
+ * 2. 速度：同一组局面固定深度搜索，比较节点数与每秒节点数（NPS）
+ * 3. 棋力：固定深度对弈，每个随机开局双方各执一次白棋，统计 NNUE 一方的胜/和/负
+ *
+ * 用法：java NnueBench [权重文件] [搜索深度] [开局数]
+ * 例如：java NnueBench assets/nnue.bin 4 20
+ */
+public class NnueBench {
+
+	private static final int BOARD_SIZE = 15;
+	private static final int MAX_PLIES = 120;
+
+	public static void main(String[] args) throws IOException {
+		Path path = Paths.get(args.length > 0 ? args[0] : Nnue.DEFAULT_PATH);
+		int depth = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+		int openings = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+		Nnue net = Nnue.load(path);
+		SplittableRandom random = new SplittableRandom(7L);
+
+		checkIncremental(net, random);
+
+		// 速度：每个开局局面各搜索一次，关闭威胁空间搜索以只比较评估函数的开销
+		long[] nodes = new long[2];
+		long[] nanos = new long[2];
+		for (int i = 0; i < openings; i++) {
+			BitBoard position = randomOpening(random, 6 + random.nextInt(10));
+			for (int e = 0; e < 2; e++) {
+				Minimax ai = engine(position, BitBoard.WHITE, e == 1 ? net : null);
+				ai.setThreatSearch(false);
+				long start = System.nanoTime();
+				ai.calculateNextMove(SearchLimit.depth(depth));
+				nanos[e] += System.nanoTime() - start;
+				nodes[e] += ai.getLastNodeCount();
+			}
+		}
+		String[] names = {"手工评估", "NNUE"};
+		for (int e = 0; e < 2; e++) {
+			System.out.printf("%s 深度 %d：节点数 %d，耗时 %d ms，%.0f 节点/秒%n", names[e], depth, nodes[e],
+					nanos[e] / 1_000_000, nodes[e] * 1e9 / Math.max(1, nanos[e]));
+		}
+
+		// 棋力：NNUE 分别执白、执黑
+		int wins = 0;
+		int draws = 0;
+		int losses = 0;
+		for (int i = 0; i < openings; i++) {
+			BitBoard opening = randomOpening(random, 2 + random.nextInt(3));
+			for (int nnueColor = BitBoard.WHITE; nnueColor <= BitBoard.BLACK; nnueColor++) {
+				int winner = play(new BitBoard(opening), net, nnueColor, depth);
+				if (winner == BitBoard.EMPTY) draws++;
+				else if (winner == nnueColor) wins++;
+				else losses++;
+			}
+		}
+		System.out.printf("NNUE 对手工评估（深度 %d，%d 局）：胜 %d 和 %d 负 %d，得分率 %.1f%%%n", depth,
+				wins + draws + losses, wins, draws, losses, 100.0 * (wins + 0.5 * draws) / Math.max(1, wins + draws + losses));
+	}
+
+	// 随机落子/提子，比较增量累加器与重新计算的评估
+	private static void checkIncremental(Nnue net, SplittableRandom random) {
+		BitBoard b = new BitBoard(BOARD_SIZE);
+		b.setNnue(net);
+		int n = BOARD_SIZE;
+		for (int i = 0; i < 2000; i++) {
+			int row = random.nextInt(n);
+			int col = random.nextInt(n);
+			if (b.isEmpty(row, col)) b.place(row, col, 1 + random.nextInt(2));
+			else b.remove(row, col);
+			if (i % 50 != 0) continue;
+			BitBoard fresh = new BitBoard(b);
+			fresh.setNnue(net);
+			for (int color = BitBoard.WHITE; color <= BitBoard.BLACK; color++) {
+				if (fresh.getAccumulator().evaluate(color) != b.getAccumulator().evaluate(color)) {
+					throw new IllegalStateException("增量累加器与重新计算的结果不一致");
+				}
+			}
+		}
+		System.out.println("增量累加器校验通过");
+	}
+
+	// 中心附近随机落 stones 子，黑先，不产生连五
+	private static BitBoard randomOpening(SplittableRandom random, int stones) {
+		int n = BOARD_SIZE;
+		BitBoard b = new BitBoard(n);
+		int color = BitBoard.BLACK;
+		for (int i = 0; i < stones; i++) {
+			int row;
+			int col;
+			do {
+				row = n / 2 - 3 + random.nextInt(7);
+				col = n / 2 - 3 + random.nextInt(7);
+			} while (!b.isEmpty(row, col));
+			b.place(row, col, color);
+			if (b.getScore(color == BitBoard.BLACK, color != BitBoard.BLACK) >= Minimax.getWinScore()) {
+				b.remove(row, col);
+				i--;
+				continue;
+			}
+			color = color == BitBoard.WHITE ? BitBoard.BLACK : BitBoard.WHITE;
+		}
+		return b;
+	}
+
+	// 从 position 开始对弈（轮到的一方由棋子数决定，黑先），返回胜方，和棋返回 EMPTY
+	private static int play(BitBoard position, Nnue net, int nnueColor, int depth) {
+		int color = position.getStoneCount() % 2 == 0 ? BitBoard.BLACK : BitBoard.WHITE;
+		for (int ply = 0; ply < MAX_PLIES; ply++) {
+			Minimax ai = engine(position, color, color == nnueColor ? net : null);
+			int[] move = ai.calculateNextMove(SearchLimit.depth(depth));
+			if (move == null) return BitBoard.EMPTY;
+			position.place(move[0], move[1], color);
+			if (position.getScore(color == BitBoard.BLACK, color != BitBoard.BLACK) >= Minimax.getWinScore()) return color;
+			color = color == BitBoard.WHITE ? BitBoard.BLACK : BitBoard.WHITE;
+		}
+		return BitBoard.EMPTY;
+	}
+
+	// 为 color 方建立引擎。引擎总是为白棋搜索，轮到黑棋时交换双方颜色。
+	private static Minimax engine(BitBoard position, int color, Nnue net) {
+		int n = position.getSize();
+		Board board = new Board(n);
+		for (int row = 0; row < n; row++) {
+			for (int col = 0; col < n; col++) {
+				int stone = position.get(row, col);
+				if (stone == BitBoard.EMPTY) continue;
+				boolean black = (stone == BitBoard.BLACK) != (color == BitBoard.BLACK);
+				board.addStoneNoGUI(col, row, black);
+			}
+		}
+		Minimax ai = new Minimax(board, 16);
+		ai.setOpeningBook(null);
+		ai.setNnue(net);
+		ai.setThreads(1);
+		return ai;
+	}
+}
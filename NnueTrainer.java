@@ -0,0 +1,371 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * 神经网络评估的离线训练工具。
+ * 1. 自对弈生成局面：开局随机落几子，之后按静态棋型分贪心落子（带少量随机），直到分出胜负
+ * 2. 标签 = 手工评估压缩为胜率（sigmoid(分值 / EVAL_SCALE)）与对局结果的加权平均
+ * 3. 以浮点数训练（Adam，交叉熵），权重限制在量化范围内，最后量化写出权重文件
+ *
+ * 用法：java NnueTrainer [输出文件] [对局数] [训练轮数] [第一层宽度]
+ * 例如：java NnueTrainer assets/nnue.bin 2000 30 32
+ */
+public class NnueTrainer {
+
+	private static final int BOARD_SIZE = 15;
+	private static final int L2 = 16;
+	private static final int MAX_PLIES = 150;
+	// 标签中对局结果所占的比例
+	private static final double RESULT_WEIGHT = 0.3;
+	private static final double LEARNING_RATE = 0.002;
+	private static final int BATCH_SIZE = 256;
+	// 训练时的权重范围，保证量化后不溢出：
+	// 第一层 |w| * 127 <= 32，15 路棋盘上全部 572 个窗口加 225 个棋子特征叠加也不超出 int16
+	private static final double W1_LIMIT = 32.0 / Nnue.QA;
+	private static final double B1_LIMIT = 1.0;
+	private static final double W2_LIMIT = 127.0 / Nnue.QB;
+
+	/** 一个训练局面：轮到一方视角与对方视角的特征（特征编号 << 12 | 次数），以及标签 */
+	private static final class Sample {
+		final int[] us;
+		final int[] them;
+		final int eval;
+		final int mover;
+		double target;
+
+		Sample(int[] us, int[] them, int eval, int mover) {
+			this.us = us;
+			this.them = them;
+			this.eval = eval;
+			this.mover = mover;
+		}
+	}
+
+	private final int features = Nnue.featureCount(BOARD_SIZE);
+	private final int hidden;
+	private final SplittableRandom random = new SplittableRandom(20240601L);
+
+	// 浮点网络参数及 Adam 的一阶/二阶矩
+	private final double[][] params;
+	private final double[][] grads;
+	private final double[][] moment1;
+	private final double[][] moment2;
+	private final double[] w1;
+	private final double[] b1;
+	private final double[] w2;
+	private final double[] b2;
+	private final double[] w3;
+	private final double[] b3;
+	private int step = 0;
+
+	NnueTrainer(int hidden) {
+		this.hidden = hidden;
+		w1 = new double[features * hidden];
+		b1 = new double[hidden];
+		w2 = new double[L2 * 2 * hidden];
+		b2 = new double[L2];
+		w3 = new double[L2];
+		b3 = new double[1];
+		params = new double[][] {w1, b1, w2, b2, w3, b3};
+		grads = new double[params.length][];
+		moment1 = new double[params.length][];
+		moment2 = new double[params.length][];
+		for (int i = 0; i < params.length; i++) {
+			grads[i] = new double[params[i].length];
+			moment1[i] = new double[params[i].length];
+			moment2[i] = new double[params[i].length];
+		}
+		for (int i = 0; i < w1.length; i++) w1[i] = (random.nextDouble() - 0.5) * 0.02;
+		for (int i = 0; i < b1.length; i++) b1[i] = 0.5;
+		for (int i = 0; i < w2.length; i++) w2[i] = (random.nextDouble() - 0.5) * 2 / Math.sqrt(2 * hidden);
+		for (int i = 0; i < b2.length; i++) b2[i] = 0.5;
+		for (int i = 0; i < w3.length; i++) w3[i] = (random.nextDouble() - 0.5) * 2 / Math.sqrt(L2);
+	}
+
+	public static void main(String[] args) throws IOException {
+		Path output = Paths.get(args.length > 0 ? args[0] : Nnue.DEFAULT_PATH);
+		int games = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+		int epochs = args.length > 2 ? Integer.parseInt(args[2]) : 30;
+		int hidden = args.length > 3 ? Integer.parseInt(args[3]) : 32;
+
+		NnueTrainer trainer = new NnueTrainer(hidden);
+		long start = System.currentTimeMillis();
+		List<Sample> samples = new ArrayList<>();
+		for (int g = 0; g < games; g++) trainer.playGame(samples);
+		System.out.println("自对弈 " + games + " 局，局面数: " + samples.size()
+				+ " 耗时: " + (System.currentTimeMillis() - start) / 1000 + " s");
+
+		// 打乱后留出 10% 作为验证集
+		for (int i = samples.size() - 1; i > 0; i--) {
+			int j = trainer.random.nextInt(i + 1);
+			Sample t = samples.get(i);
+			samples.set(i, samples.get(j));
+			samples.set(j, t);
+		}
+		int validation = samples.size() / 10;
+		List<Sample> test = samples.subList(0, validation);
+		List<Sample> train = samples.subList(validation, samples.size());
+		for (int epoch = 1; epoch <= epochs; epoch++) {
+			double loss = trainer.trainEpoch(train);
+			System.out.printf("第 %d 轮 训练损失: %.5f 验证损失: %.5f%n", epoch, loss, trainer.loss(test));
+		}
+
+		Nnue net = trainer.quantize();
+		if (output.getParent() != null) Files.createDirectories(output.getParent());
+		net.write(output);
+		System.out.println("权重已写出: " + output + " (" + Files.size(output) + " 字节) 总耗时: "
+				+ (System.currentTimeMillis() - start) / 1000 + " s");
+	}
+
+	// 自对弈一局，把每个局面（落子前）加入 samples，终局后补上结果标签
+	private void playGame(List<Sample> samples) {
+		int n = BOARD_SIZE;
+		BitBoard b = new BitBoard(n);
+		int first = samples.size();
+		int[] moves = new int[n * n];
+		int[] counts = new int[features];
+		int color = BitBoard.BLACK;
+		int winner = BitBoard.EMPTY;
+
+		// 开局：中心附近随机 1~4 子
+		int opening = 1 + random.nextInt(4);
+		for (int i = 0; i < opening; i++) {
+			int row;
+			int col;
+			do {
+				row = n / 2 - 3 + random.nextInt(7);
+				col = n / 2 - 3 + random.nextInt(7);
+			} while (!b.isEmpty(row, col));
+			b.place(row, col, color);
+			color = other(color);
+		}
+
+		for (int ply = opening; ply < MAX_PLIES; ply++) {
+			int count = b.generateMoves(moves);
+			if (count == 0) break;
+			int opp = other(color);
+			samples.add(new Sample(sparse(b, color, counts), sparse(b, opp, counts), Minimax.evaluate(b, color), color));
+
+			int cell = chooseMove(b, color, moves, count);
+			b.place(cell / n, cell % n, color);
+			if (b.getScore(color == BitBoard.BLACK, color != BitBoard.BLACK) >= Minimax.getWinScore()) {
+				winner = color;
+				break;
+			}
+			color = opp;
+		}
+
+		for (int i = first; i < samples.size(); i++) {
+			Sample s = samples.get(i);
+			double result = winner == BitBoard.EMPTY ? 0.5 : winner == s.mover ? 1.0 : 0.0;
+			double staticTarget = 1.0 / (1.0 + Math.exp(-(double) s.eval / Nnue.EVAL_SCALE));
+			s.target = (1 - RESULT_WEIGHT) * staticTarget + RESULT_WEIGHT * result;
+		}
+	}
+
+	// 按静态棋型分选点：多数时候取最高分，少数时候从前几名中随机取，使对局多样化
+	private int chooseMove(BitBoard b, int color, int[] moves, int count) {
+		int n = b.getSize();
+		int opp = other(color);
+		int[] top = new int[4];
+		int[] topScore = new int[4];
+		java.util.Arrays.fill(topScore, Integer.MIN_VALUE);
+		for (int i = 0; i < count; i++) {
+			int cell = moves[i];
+			int score = 2 * b.moveGain(cell / n, cell % n, color, Integer.MAX_VALUE / 4)
+					+ b.moveGain(cell / n, cell % n, opp, Integer.MAX_VALUE / 4);
+			for (int k = 0; k < top.length; k++) {
+				if (score > topScore[k]) {
+					System.arraycopy(top, k, top, k + 1, top.length - k - 1);
+					System.arraycopy(topScore, k, topScore, k + 1, top.length - k - 1);
+					top[k] = cell;
+					topScore[k] = score;
+					break;
+				}
+			}
+		}
+		if (random.nextInt(100) < 15) {
+			int k = random.nextInt(Math.min(count, top.length));
+			return top[k];
+		}
+		return top[0];
+	}
+
+	// perspective 视角的特征，压缩为 (特征编号 << 12 | 次数) 列表
+	private int[] sparse(BitBoard b, int perspective, int[] counts) {
+		Nnue.countFeatures(b, perspective, counts);
+		int nonZero = 0;
+		for (int c : counts) if (c != 0) nonZero++;
+		int[] out = new int[nonZero];
+		int k = 0;
+		for (int f = 0; f < counts.length; f++) {
+			if (counts[f] != 0) out[k++] = f << 12 | counts[f];
+		}
+		return out;
+	}
+
+	// 前向计算的中间结果（每个局面复用）
+	private double[] accUs;
+	private double[] accThem;
+	private double[] input;
+	private double[] z2;
+
+	private double forward(Sample s) {
+		int h = hidden;
+		if (accUs == null) {
+			accUs = new double[h];
+			accThem = new double[h];
+			input = new double[2 * h];
+			z2 = new double[L2];
+		}
+		accumulate(s.us, accUs);
+		accumulate(s.them, accThem);
+		for (int i = 0; i < h; i++) {
+			input[i] = clip(accUs[i]);
+			input[h + i] = clip(accThem[i]);
+		}
+		double logit = b3[0];
+		for (int j = 0; j < L2; j++) {
+			double z = b2[j];
+			int off = j * 2 * h;
+			for (int k = 0; k < 2 * h; k++) z += w2[off + k] * input[k];
+			z2[j] = z;
+			logit += w3[j] * clip(z);
+		}
+		return logit;
+	}
+
+	private void accumulate(int[] feats, double[] acc) {
+		System.arraycopy(b1, 0, acc, 0, hidden);
+		for (int packed : feats) {
+			int off = (packed >>> 12) * hidden;
+			int c = packed & 0xFFF;
+			for (int i = 0; i < hidden; i++) acc[i] += c * w1[off + i];
+		}
+	}
+
+	private double trainEpoch(List<Sample> train) {
+		double total = 0;
+		int h = hidden;
+		double[] gInput = new double[2 * h];
+		for (int startIdx = 0; startIdx < train.size(); startIdx += BATCH_SIZE) {
+			int end = Math.min(train.size(), startIdx + BATCH_SIZE);
+			for (double[] g : grads) java.util.Arrays.fill(g, 0);
+			double[] gw1 = grads[0], gb1 = grads[1], gw2 = grads[2], gb2 = grads[3], gw3 = grads[4], gb3 = grads[5];
+			for (int idx = startIdx; idx < end; idx++) {
+				Sample s = train.get(idx);
+				double p = sigmoid(forward(s));
+				total += crossEntropy(p, s.target);
+				double g = p - s.target;
+
+				gb3[0] += g;
+				java.util.Arrays.fill(gInput, 0);
+				for (int j = 0; j < L2; j++) {
+					double z = z2[j];
+					gw3[j] += g * clip(z);
+					if (z <= 0 || z >= 1) continue;
+					double gz = g * w3[j];
+					gb2[j] += gz;
+					int off = j * 2 * h;
+					for (int k = 0; k < 2 * h; k++) {
+						gw2[off + k] += gz * input[k];
+						gInput[k] += gz * w2[off + k];
+					}
+				}
+				for (int i = 0; i < h; i++) {
+					double gu = accUs[i] > 0 && accUs[i] < 1 ? gInput[i] : 0;
+					double gt = accThem[i] > 0 && accThem[i] < 1 ? gInput[h + i] : 0;
+					gb1[i] += gu + gt;
+					accUs[i] = gu;
+					accThem[i] = gt;
+				}
+				backpropFeatures(s.us, accUs, gw1);
+				backpropFeatures(s.them, accThem, gw1);
+			}
+			adam(end - startIdx);
+		}
+		return total / train.size();
+	}
+
+	private void backpropFeatures(int[] feats, double[] gAcc, double[] gw1) {
+		for (int packed : feats) {
+			int off = (packed >>> 12) * hidden;
+			int c = packed & 0xFFF;
+			for (int i = 0; i < hidden; i++) gw1[off + i] += c * gAcc[i];
+		}
+	}
+
+	// Adam 更新，之后把参数截断到量化范围内
+	private void adam(int batch) {
+		step++;
+		double beta1 = 0.9;
+		double beta2 = 0.999;
+		double c1 = 1 - Math.pow(beta1, step);
+		double c2 = 1 - Math.pow(beta2, step);
+		for (int p = 0; p < params.length; p++) {
+			double[] w = params[p];
+			double[] g = grads[p];
+			double[] m = moment1[p];
+			double[] v = moment2[p];
+			for (int i = 0; i < w.length; i++) {
+				if (g[i] == 0 && m[i] == 0) continue;
+				double gi = g[i] / batch;
+				m[i] = beta1 * m[i] + (1 - beta1) * gi;
+				v[i] = beta2 * v[i] + (1 - beta2) * gi * gi;
+				w[i] -= LEARNING_RATE * (m[i] / c1) / (Math.sqrt(v[i] / c2) + 1e-8);
+			}
+		}
+		clamp(w1, W1_LIMIT);
+		clamp(b1, B1_LIMIT);
+		clamp(w2, W2_LIMIT);
+		clamp(w3, W2_LIMIT);
+	}
+
+	private double loss(List<Sample> samples) {
+		double total = 0;
+		for (Sample s : samples) total += crossEntropy(sigmoid(forward(s)), s.target);
+		return samples.isEmpty() ? 0 : total / samples.size();
+	}
+
+	// 把浮点参数量化为 Nnue 的整数格式
+	private Nnue quantize() {
+		short[] qw1 = new short[w1.length];
+		for (int i = 0; i < w1.length; i++) qw1[i] = (short) Math.round(w1[i] * Nnue.QA);
+		short[] qb1 = new short[b1.length];
+		for (int i = 0; i < b1.length; i++) qb1[i] = (short) Math.round(b1[i] * Nnue.QA);
+		byte[] qw2 = new byte[w2.length];
+		for (int i = 0; i < w2.length; i++) qw2[i] = (byte) Math.max(-127, Math.min(127, Math.round(w2[i] * Nnue.QB)));
+		int[] qb2 = new int[b2.length];
+		for (int j = 0; j < b2.length; j++) qb2[j] = (int) Math.round(b2[j] * Nnue.QA * Nnue.QB);
+		byte[] qw3 = new byte[w3.length];
+		for (int j = 0; j < w3.length; j++) qw3[j] = (byte) Math.max(-127, Math.min(127, Math.round(w3[j] * Nnue.QB)));
+		int qb3 = (int) Math.round(b3[0] * Nnue.QA * Nnue.QB);
+		return new Nnue(BOARD_SIZE, hidden, L2, qw1, qb1, qw2, qb2, qw3, qb3);
+	}
+
+	private static void clamp(double[] w, double limit) {
+		for (int i = 0; i < w.length; i++) w[i] = Math.max(-limit, Math.min(limit, w[i]));
+	}
+
+	private static double clip(double x) {
+		return x < 0 ? 0 : Math.min(x, 1);
+	}
+
+	private static double sigmoid(double x) {
+		return 1.0 / (1.0 + Math.exp(-x));
+	}
+
+	private static double crossEntropy(double p, double target) {
+		p = Math.max(1e-7, Math.min(1 - 1e-7, p));
+		return -(target * Math.log(p) + (1 - target) * Math.log(1 - p));
+	}
+
+	private static int other(int color) {
+		return color == BitBoard.WHITE ? BitBoard.BLACK : BitBoard.WHITE;
+	}
+}
@@ -1,7 +1,6 @@
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseListener;
 import java.util.ArrayList;
-import java.util.Random;
 import java.util.Timer;
 import java.util.TimerTask;
 
@@ -10,7 +9,7 @@ import java.util.TimerTask;
  * - 服务器默认为黑棋（先手），客户端默认为白棋（后手）。
  * - 使用基于 TCP 的微型文本协议：
  *   MOVE x y         // 落子
- *   TIMEOUT_MOVE x y // 系统超时随机落子
+ *   TIMEOUT_MOVE x y // 超时由 AI 代为落子
  *   CHAT <base64>    // 聊天
  *   NEW              // 请求新开局
  *   UNDO_REQ / UNDO_OK / UNDO_NO // 悔棋请求/通过/拒绝
@@ -57,7 +56,15 @@ public class OnlineGameController {
 	private Timer countdownTimer;
 	private int remainingSeconds = 120;
 	private final int TOTAL_SECONDS = 120;
-	private Random random = new Random();
+
+	// 超时代为落子：剩余 TIMEOUT_SEARCH_SECONDS 秒时开始限时搜索，
+	// 时限为剩余时间减去 TIMEOUT_SAFETY_MILLIS，保证计时归零前已有着法
+	private static final int TIMEOUT_SEARCH_SECONDS = 5;
+	private static final long TIMEOUT_SAFETY_MILLIS = 1500;
+	private static final int TIMEOUT_HASH_MB = 16;
+	private Minimax timeoutEngine; // 首次需要时创建
+	private SearchResult timeoutResult; // 已完成的超时搜索结果
+	private int timeoutSearchId = 0; // 每次重新计时加一，之前的搜索结果作废
 
 	// 对手倒计时显示模拟
 	private Timer opponentCountdownTimer;
@@ -119,9 +126,13 @@ public class OnlineGameController {
 					remainingSeconds--;
 					updateStatus(); // 更新ui界面
 
+					if (remainingSeconds == TIMEOUT_SEARCH_SECONDS) {
+						// 即将超时：提前为当前玩家开始限时搜索
+						startTimeoutSearch();
+					}
 					if (remainingSeconds <= 0) {
-						// 时间到！进行随机落子
-						makeRandomMove();
+						// 时间到！由 AI 代为落子
+						makeTimeoutMove();
 						stopCountdown();
 					}
 				}
@@ -130,6 +141,9 @@ public class OnlineGameController {
 	}
 
 	private synchronized void stopCountdown() {
+		// 玩家已落子或对局被重置：正在进行的超时搜索作废
+		timeoutSearchId++;
+		timeoutResult = null;
 		if (countdownTimer != null) {
 			countdownTimer.cancel();
 			countdownTimer = null;
@@ -170,46 +184,74 @@ public class OnlineGameController {
 		}
 	}
 
-	//为当前玩家随机落子
-	private synchronized void makeRandomMove() {
+	// 在后台线程对当前局面做限时搜索，时限取剩余时间减去安全余量（Engine.search 不读写 board）
+	private void startTimeoutSearch() {
+		int id = ++timeoutSearchId;
+		timeoutResult = null;
+		Position position = Position.of(board, blackTurn ? BitBoard.BLACK : BitBoard.WHITE);
+		long budget = Math.max(1, remainingSeconds * 1000L - TIMEOUT_SAFETY_MILLIS);
+		if (timeoutEngine == null) {
+			timeoutEngine = new Minimax(board, TIMEOUT_HASH_MB);
+			timeoutEngine.setThreads(1);
+		}
+		Minimax engine = timeoutEngine;
+		Thread t = new Thread(() -> {
+			SearchResult result = engine.search(position, SearchLimit.time(budget));
+			synchronized (OnlineGameController.this) {
+				if (id == timeoutSearchId) timeoutResult = result;
+			}
+		}, "timeout-search");
+		t.setDaemon(true);
+		t.start();
+	}
+
+	//时间到：为当前玩家落下超时搜索的着法；搜索未能按时完成时改用静态棋型分最高的点
+	private synchronized void makeTimeoutMove() {
 		if (gameFinished || !connected) {
-			System.out.println("DEBUG: Cannot make random move - gameFinished: " + gameFinished + ", connected: " + connected);
+			System.out.println("DEBUG: Cannot make timeout move - gameFinished: " + gameFinished + ", connected: " + connected);
 			return;
 		}
 
-		System.out.println("DEBUG: Making random move for " + (blackTurn ? "black" : "white") + " player");
-
-		// 生成合法落子列表
-		ArrayList<int[]> validMoves = board.generateMoves();
-		if (validMoves.isEmpty()) {
+		int[] move = timeoutResult != null ? timeoutResult.getMove() : null;
+		if (move == null) {
+			System.out.println("DEBUG: Timeout search not finished, using static move");
+			move = staticMove();
+		}
+		if (move == null) {
 			System.out.println("DEBUG: No valid moves available");
 			return;
 		}
+		int x = move[1]; // 着法为 {行(y), 列(x)}
+		int y = move[0];
 
-		// 选取随机落子
-		int[] randomMove = validMoves.get(random.nextInt(validMoves.size()));
-		int x = randomMove[1]; // generateMoves 返回 [y, x]
-		int y = randomMove[0];
-
-		System.out.println("DEBUG: Selected random move at (" + x + "," + y + ")");
+		System.out.println("DEBUG: Timeout move for " + (blackTurn ? "black" : "white") + " player at (" + x + "," + y + ")");
 
 		// 在本地落子
 		boolean ok = playMove(x, y, blackTurn, false); // 不直接发送 MOVE，而是发送 TIMEOUT_MOVE
 		if (ok) {
-			afterMove();
+			afterMove(x, y);
 			// 发送特殊的超时落子消息给对方
 			if (connected && net != null) {
 				net.sendLine("TIMEOUT_MOVE " + x + " " + y);
 			}
 
 			if (ui != null) {
-				ui.appendSystemMessage("系统：时间到！系统随机下棋于 (" + (x+1) + "," + (char)('A'+y) + ")");
+				ui.appendSystemMessage("系统：时间到！AI 代为下棋于 (" + (x+1) + "," + (char)('A'+y) + ")");
 			}
 		} else {
-			System.out.println("DEBUG: Failed to make random move");
+			System.out.println("DEBUG: Failed to make timeout move");
 		}
 	}
 
+	// 不搜索的应急着法：当前玩家静态棋型分（进攻加倍 + 防守）最高的点，空棋盘下在中心
+	private int[] staticMove() {
+		BitBoard position = new BitBoard(board);
+		int n = position.getSize();
+		if (position.getStoneCount() == 0) return new int[] {n / 2, n / 2};
+		int[] best = Minimax.likelyReplies(position, blackTurn ? BitBoard.BLACK : BitBoard.WHITE, 1);
+		return best.length == 0 ? null : new int[] {best[0] / n, best[0] % n};
+	}
+
 	public synchronized boolean isConnected() {
 		return connected;
 	}
@@ -327,7 +369,7 @@ public class OnlineGameController {
 			return;
 		}
 
-		afterMove();
+		afterMove(x, y);
 	}
 
 	// 应用一次本地落子。如果 broadcast==true，发送 MOVE 给对方。
@@ -342,7 +384,7 @@ public class OnlineGameController {
 		blackTurn = !blackTurn;
 		return true;
 	}
-	//当对方发送 TIMEOUT_MOVE（系统超时随机落子）时，由网络线程调用
+	//当对方发送 TIMEOUT_MOVE（超时由 AI 代为落子）时，由网络线程调用
 	public synchronized void applyTimeoutMove(int x, int y) {
 		if (!connected) return;
 		if (gameFinished) return;
@@ -352,11 +394,15 @@ public class OnlineGameController {
 		if (isReviewMode()) {
 			replayIndex = history.size();
 		}
+		if (!isValidRemoteMove(x, y)) {
+			if (ui != null) ui.appendSystemMessage("系统：警告：收到对方超时落子，但位置无效。");
+			return;
+		}
 		boolean ok = playMove(x, y, blackTurn, false);
 		if (ok) {
-			afterMove();
+			afterMove(x, y);
 			if (ui != null) {
-				ui.appendSystemMessage("系统：对方时间到！系统随机下棋于 (" + (x+1) + "," + (char)('A'+y) + ")");
+				ui.appendSystemMessage("系统：对方时间到！AI 代为下棋于 (" + (x+1) + "," + (char)('A'+y) + ")");
 			}
 		} else {
 			if (ui != null) ui.appendSystemMessage("系统：警告：收到对方超时落子，但位置无效。");
@@ -379,16 +425,29 @@ public class OnlineGameController {
 			replayIndex = history.size();
 		}
 
+		if (!isValidRemoteMove(x, y)) {
+			if (ui != null) ui.appendSystemMessage("系统：警告：收到对方落子，但位置无效（不在对方回合、越界或已被占用）。");
+			return;
+		}
 		boolean ok = playMove(x, y, blackTurn, false);
 		if (!ok) {
 			if (ui != null) ui.appendSystemMessage("系统：警告：收到对方落子，但位置无效（可能已被占用）。");
 			return;
 		}
-		afterMove();
+		afterMove(x, y);
+	}
+
+	// 校验对方发来的落子：必须轮到对方，坐标在棋盘内且为空位。O(1)，不扫描棋盘。
+	private boolean isValidRemoteMove(int x, int y) {
+		if (blackTurn == myBlack) return false;
+		int n = board.getBoardSize();
+		if (x < 0 || y < 0 || x >= n || y >= n) return false;
+		return board.getBoardMatrix()[y][x] == 0;
 	}
 
-	private void afterMove() {
-		winnerColor = checkWinnerColor();
+	// (x, y) 为刚落下的一子
+	private void afterMove(int x, int y) {
+		winnerColor = checkWinnerColor(x, y);
 		if (winnerColor != 0) {
 			stopCountdown();
 			gameFinished = true;
@@ -424,10 +483,12 @@ public class OnlineGameController {
 		board.printWinner(localWin ? 2 : 1);
 	}
 
-	private int checkWinnerColor() {
-		if (Minimax.getScore(board, true, false) >= Minimax.getWinScore()) return 2;
-		if (Minimax.getScore(board, false, true) >= Minimax.getWinScore()) return 1;
-		return 0;
+	// 只检查经过最后一步 (x, y) 的四条线，返回成五一方的颜色（2 黑 / 1 白），否则 0
+	private int checkWinnerColor(int x, int y) {
+		int[][] five = board.findFive(x, y);
+		if (five == null) return 0;
+		if (ui != null) ui.appendSystemMessage("系统：五子连珠：" + GameController.formatFive(five));
+		return board.getBoardMatrix()[y][x];
 	}
 
 	// ---------------- 悔棋（单步，受限） ----------------
@@ -0,0 +1,188 @@
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+
+/**
+ * 开局库：局面键 -> 推荐着法，由 OpeningBookBuilder 离线生成。
+ *
+ * 文件格式（大端）：
+ *   头部 16 字节：魔数 "GBK1"、棋盘大小、最多棋子数、条目数
+ *   条目 10 字节：long 局面键 + short 着法（格子编号），按键升序排列
+ * 启动时整个文件以只读方式内存映射，不做任何解析，查找为二分查找。
+ *
+ * 局面键 = 8 种对称变换（旋转/翻转）下 Zobrist 键的最小值，轮到黑棋时再异或 SIDE_KEY，
+ * 着法也按同一变换保存，因此对称的开局只需一个条目。
+ */
+public class OpeningBook {
+
+	public static final String DEFAULT_PATH = "assets/opening.book";
+
+	static final int MAGIC = 0x47424B31; // "GBK1"
+	static final int HEADER_BYTES = 16;
+	static final int ENTRY_BYTES = 10;
+
+	private final ByteBuffer data;
+	private final int boardSize;
+	private final int maxStones;
+	private final int count;
+
+	private static OpeningBook defaultBook;
+	private static boolean defaultLoaded;
+
+	private OpeningBook(ByteBuffer data) throws IOException {
+		if (data.capacity() < HEADER_BYTES || data.getInt(0) != MAGIC) {
+			throw new IOException("不是有效的开局库文件");
+		}
+		this.data = data;
+		this.boardSize = data.getInt(4);
+		this.maxStones = data.getInt(8);
+		this.count = data.getInt(12);
+		if ((long) HEADER_BYTES + (long) count * ENTRY_BYTES > data.capacity()) {
+			throw new IOException("开局库文件不完整");
+		}
+	}
+
+	/** 内存映射开局库文件 */
+	public static OpeningBook load(Path path) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			return new OpeningBook(buffer);
+		}
+	}
+
+	/** 默认开局库（assets/opening.book），进程内只加载一次；文件不存在时返回 null */
+	public static synchronized OpeningBook getDefault() {
+		if (!defaultLoaded) {
+			defaultLoaded = true;
+			Path path = Paths.get(DEFAULT_PATH);
+			if (Files.isRegularFile(path)) {
+				try {
+					defaultBook = load(path);
+					System.out.println("已加载开局库: " + path + " 条目数: " + defaultBook.size());
+				} catch (IOException e) {
+					System.out.println("开局库加载失败: " + e.getMessage());
+				}
+			}
+		}
+		return defaultBook;
+	}
+
+	public int size() {
+		return count;
+	}
+
+	public int getBoardSize() {
+		return boardSize;
+	}
+
+	public int getMaxStones() {
+		return maxStones;
+	}
+
+	/**
+	 * 查找 color 方在该局面下的开局库着法。
+	 * 返回格子编号 (行*n+列)，未收录、棋盘大小不符或推荐点已被占用时返回 NO_MOVE。
+	 */
+	public int lookup(BitBoard board, int color) {
+		int n = board.getSize();
+		if (n != boardSize || board.getStoneCount() > maxStones) return TranspositionTable.NO_MOVE;
+		long[] keys = symmetricKeys(board, color);
+		int t = canonical(keys);
+		int stored = find(keys[t]);
+		if (stored < 0) return TranspositionTable.NO_MOVE;
+		int cell = transform(stored, inverse(t), n);
+		if (!board.isEmpty(cell / n, cell % n)) return TranspositionTable.NO_MOVE;
+		return cell;
+	}
+
+	// 在已排序的条目中二分查找键，返回保存的着法，未找到返回 -1
+	private int find(long key) {
+		int lo = 0;
+		int hi = count - 1;
+		while (lo <= hi) {
+			int mid = (lo + hi) >>> 1;
+			int pos = HEADER_BYTES + mid * ENTRY_BYTES;
+			long k = data.getLong(pos);
+			if (k < key) lo = mid + 1;
+			else if (k > key) hi = mid - 1;
+			else return data.getShort(pos + 8) & 0xFFFF;
+		}
+		return -1;
+	}
+
+	/** 把条目（规范局面键 -> 规范坐标系下的着法）按键排序写成开局库文件 */
+	static void write(Path path, int boardSize, int maxStones, Map<Long, Integer> entries) throws IOException {
+		long[] keys = new long[entries.size()];
+		int i = 0;
+		for (long key : entries.keySet()) keys[i++] = key;
+		java.util.Arrays.sort(keys);
+		try (DataOutputStream out = new DataOutputStream(new java.io.BufferedOutputStream(Files.newOutputStream(path)))) {
+			out.writeInt(MAGIC);
+			out.writeInt(boardSize);
+			out.writeInt(maxStones);
+			out.writeInt(keys.length);
+			for (long key : keys) {
+				out.writeLong(key);
+				out.writeShort(entries.get(key));
+			}
+		}
+	}
+
+	// 8 种对称变换下的局面键（含轮次）
+	static long[] symmetricKeys(BitBoard board, int color) {
+		int n = board.getSize();
+		long[] keys = new long[8];
+		for (int row = 0; row < n; row++) {
+			for (int col = 0; col < n; col++) {
+				int stone = board.get(row, col);
+				if (stone == BitBoard.EMPTY) continue;
+				int cell = row * n + col;
+				for (int t = 0; t < 8; t++) keys[t] ^= BitBoard.zobristKey(stone, transform(cell, t, n));
+			}
+		}
+		if (color == BitBoard.BLACK) {
+			for (int t = 0; t < 8; t++) keys[t] ^= BitBoard.SIDE_KEY;
+		}
+		return keys;
+	}
+
+	// 键最小的变换作为规范形式
+	static int canonical(long[] keys) {
+		int best = 0;
+		for (int t = 1; t < keys.length; t++) {
+			if (keys[t] < keys[best]) best = t;
+		}
+		return best;
+	}
+
+	// 对称变换：0 恒等，1/2/3 旋转 90/180/270 度，4..7 四种翻转
+	static int transform(int cell, int t, int n) {
+		int r = cell / n;
+		int c = cell % n;
+		int m = n - 1;
+		switch (t) {
+			case 0: return r * n + c;
+			case 1: return c * n + (m - r);
+			case 2: return (m - r) * n + (m - c);
+			case 3: return (m - c) * n + r;
+			case 4: return r * n + (m - c);
+			case 5: return c * n + r;
+			case 6: return (m - r) * n + c;
+			default: return (m - c) * n + (m - r);
+		}
+	}
+
+	// 逆变换：两个旋转方向互逆，其余变换自逆
+	static int inverse(int t) {
+		if (t == 1) return 3;
+		if (t == 3) return 1;
+		return t;
+	}
+}
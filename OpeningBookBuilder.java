@@ -0,0 +1,136 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 开局库离线生成工具：从空棋盘开始自对弈，每个轮到白棋的局面用深度搜索求出最佳着法。
+ * 引擎总是为白棋搜索（轮到黑棋时先交换双方颜色），只会以白棋查询开局库，
+ * 因此只收录轮到白棋的局面；轮到黑棋的局面不搜索也不收录，只展开对方的应对。
+ * 每个局面除最佳着法外，再展开静态棋型分最高的若干着法，使开局库覆盖常见的变化。
+ * 对称的局面只展开一次。
+ *
+ * 用法：java OpeningBookBuilder [输出文件] [最多步数] [每步展开数] [搜索深度]
+ * 例如：java OpeningBookBuilder assets/opening.book 6 3 7
+ */
+public class OpeningBookBuilder {
+
+	private static final int BOARD_SIZE = 15;
+
+	private final int maxPlies;
+	private final int width;
+	private final SearchLimit limit;
+	// 规范局面键 -> 规范坐标系下的着法
+	private final Map<Long, Integer> entries = new HashMap<>();
+	// 已展开的轮到黑棋的局面（规范局面键）
+	private final Set<Long> expandedReplies = new HashSet<>();
+	private int searched = 0;
+
+	OpeningBookBuilder(int maxPlies, int width, SearchLimit limit) {
+		this.maxPlies = maxPlies;
+		this.width = width;
+		this.limit = limit;
+	}
+
+	public static void main(String[] args) throws IOException {
+		Path output = Paths.get(args.length > 0 ? args[0] : OpeningBook.DEFAULT_PATH);
+		int plies = args.length > 1 ? Integer.parseInt(args[1]) : 6;
+		int width = args.length > 2 ? Integer.parseInt(args[2]) : 3;
+		int depth = args.length > 3 ? Integer.parseInt(args[3]) : 7;
+
+		OpeningBookBuilder builder = new OpeningBookBuilder(plies, width, SearchLimit.depth(depth));
+		long start = System.currentTimeMillis();
+		// 两种先手：黑棋先手（AI 执白）；AI 执黑时引擎交换颜色，相当于白棋先手
+		builder.expand(new BitBoard(BOARD_SIZE), BitBoard.BLACK, 0);
+		builder.expand(new BitBoard(BOARD_SIZE), BitBoard.WHITE, 0);
+
+		if (output.getParent() != null) Files.createDirectories(output.getParent());
+		OpeningBook.write(output, BOARD_SIZE, plies - 1, builder.entries);
+		System.out.println("开局库已生成: " + output + " 条目数: " + builder.entries.size()
+				+ " 搜索局面数: " + builder.searched + " 耗时: " + (System.currentTimeMillis() - start) / 1000 + " s");
+	}
+
+	// 轮到白棋：求最佳着法并收录；轮到黑棋：只展开应对。然后展开后续局面
+	private void expand(BitBoard position, int color, int ply) {
+		if (ply >= maxPlies) return;
+		int n = position.getSize();
+		long[] keys = OpeningBook.symmetricKeys(position, color);
+		int t = OpeningBook.canonical(keys);
+		int best = TranspositionTable.NO_MOVE;
+		if (color == BitBoard.WHITE) {
+			if (entries.containsKey(keys[t])) return;
+			best = bestMove(position);
+			if (best == TranspositionTable.NO_MOVE) return;
+			entries.put(keys[t], OpeningBook.transform(best, t, n));
+		} else if (!expandedReplies.add(keys[t])) {
+			return;
+		}
+
+		int opp = color == BitBoard.WHITE ? BitBoard.BLACK : BitBoard.WHITE;
+		for (int cell : candidates(position, color, best)) {
+			position.place(cell / n, cell % n, color);
+			// 已经分出胜负的局面不再展开
+			if (position.getScore(color == BitBoard.BLACK, color != BitBoard.BLACK) < Minimax.getWinScore()) {
+				expand(position, opp, ply + 1);
+			}
+			position.remove(cell / n, cell % n);
+		}
+	}
+
+	// 最佳着法 + 静态棋型分最高的其他着法，共 width 个；没有最佳着法（NO_MOVE）时全部按静态棋型分选取
+	private int[] candidates(BitBoard position, int color, int best) {
+		int n = position.getSize();
+		int opp = color == BitBoard.WHITE ? BitBoard.BLACK : BitBoard.WHITE;
+		int[] moves = position.generateMoves();
+		// 空棋盘没有候选点：落在中心
+		if (moves.length == 0 && best == TranspositionTable.NO_MOVE) return new int[] {(n / 2) * n + n / 2};
+		int[] result = new int[Math.min(width, moves.length + 1)];
+		int count = 0;
+		boolean[] used = new boolean[n * n];
+		if (best != TranspositionTable.NO_MOVE) {
+			result[count++] = best;
+			used[best] = true;
+		}
+		while (count < result.length) {
+			int pick = TranspositionTable.NO_MOVE;
+			int pickScore = Integer.MIN_VALUE;
+			for (int cell : moves) {
+				if (used[cell]) continue;
+				int score = 2 * position.moveGain(cell / n, cell % n, color, Integer.MAX_VALUE / 4)
+						+ position.moveGain(cell / n, cell % n, opp, Integer.MAX_VALUE / 4);
+				if (score > pickScore) {
+					pickScore = score;
+					pick = cell;
+				}
+			}
+			if (pick == TranspositionTable.NO_MOVE) break;
+			used[pick] = true;
+			result[count++] = pick;
+		}
+		return java.util.Arrays.copyOf(result, count);
+	}
+
+	// 深度搜索白棋的最佳着法
+	private int bestMove(BitBoard position) {
+		int n = position.getSize();
+		if (position.getStoneCount() == 0) return (n / 2) * n + n / 2;
+		Board board = new Board(n);
+		for (int row = 0; row < n; row++) {
+			for (int col = 0; col < n; col++) {
+				int stone = position.get(row, col);
+				if (stone == BitBoard.EMPTY) continue;
+				board.addStoneNoGUI(col, row, stone == BitBoard.BLACK);
+			}
+		}
+		Minimax ai = new Minimax(board);
+		ai.setOpeningBook(null);
+		ai.setThreads(Runtime.getRuntime().availableProcessors());
+		int[] move = ai.calculateNextMove(limit);
+		searched++;
+		return move == null ? TranspositionTable.NO_MOVE : move[0] * n + move[1];
+	}
+}
@@ -0,0 +1,103 @@
+/**
+ * 不可变的局面快照：棋盘大小、每格的棋子（0 空 1 白 2 黑）与轮到落子的一方。
+ * 作为 Engine.search 的输入，可以在多个线程、多个同时进行的搜索之间共享；
+ * 与 Board 不同，它不关联界面，也不会被对局后续的落子改变。
+ */
+public final class Position {
+
+	private final int size;
+	private final byte[] cells; // 行*n+列
+	private final int sideToMove;
+	private final int stoneCount;
+
+	private Position(int size, byte[] cells, int sideToMove) {
+		if (sideToMove != BitBoard.WHITE && sideToMove != BitBoard.BLACK) {
+			throw new IllegalArgumentException("轮到落子的一方必须是白棋或黑棋");
+		}
+		this.size = size;
+		this.cells = cells;
+		this.sideToMove = sideToMove;
+		int count = 0;
+		for (byte c : cells) {
+			if (c != BitBoard.EMPTY) count++;
+		}
+		this.stoneCount = count;
+	}
+
+	/** 空棋盘，黑先 */
+	public static Position empty(int size) {
+		return new Position(size, new byte[size * size], BitBoard.BLACK);
+	}
+
+	/** Board 当前棋子的快照，sideToMove 为轮到的一方 */
+	public static Position of(Board board, int sideToMove) {
+		return of(board.getBoardMatrix(), sideToMove);
+	}
+
+	/** 棋盘矩阵（matrix[行][列]）的快照 */
+	public static Position of(int[][] matrix, int sideToMove) {
+		int n = matrix.length;
+		byte[] cells = new byte[n * n];
+		for (int row = 0; row < n; row++) {
+			for (int col = 0; col < n; col++) cells[row * n + col] = (byte) matrix[row][col];
+		}
+		return new Position(n, cells, sideToMove);
+	}
+
+	/** BitBoard 的快照 */
+	public static Position of(BitBoard board, int sideToMove) {
+		int n = board.getSize();
+		byte[] cells = new byte[n * n];
+		for (int cell = 0; cell < n * n; cell++) cells[cell] = (byte) board.get(cell / n, cell % n);
+		return new Position(n, cells, sideToMove);
+	}
+
+	/** 轮到的一方在 (row, col) 落子后的新局面，原局面不变 */
+	public Position play(int row, int col) {
+		if (!isEmpty(row, col)) throw new IllegalArgumentException("该位置已有棋子: " + row + "," + col);
+		byte[] next = cells.clone();
+		next[row * size + col] = (byte) sideToMove;
+		return new Position(size, next, sideToMove == BitBoard.WHITE ? BitBoard.BLACK : BitBoard.WHITE);
+	}
+
+	public int getSize() {
+		return size;
+	}
+
+	public int getSideToMove() {
+		return sideToMove;
+	}
+
+	public int getStoneCount() {
+		return stoneCount;
+	}
+
+	public int get(int row, int col) {
+		return cells[row * size + col];
+	}
+
+	public boolean isEmpty(int row, int col) {
+		return cells[row * size + col] == BitBoard.EMPTY;
+	}
+
+	/** 按原颜色建立的 BitBoard */
+	public BitBoard toBitBoard() {
+		return build(false);
+	}
+
+	// 引擎总是为白棋搜索：轮到黑棋时交换双方颜色，使轮到的一方成为白棋
+	BitBoard toSearchBoard() {
+		return build(sideToMove == BitBoard.BLACK);
+	}
+
+	private BitBoard build(boolean swap) {
+		BitBoard b = new BitBoard(size);
+		for (int cell = 0; cell < cells.length; cell++) {
+			int stone = cells[cell];
+			if (stone == BitBoard.EMPTY) continue;
+			if (swap) stone = stone == BitBoard.WHITE ? BitBoard.BLACK : BitBoard.WHITE;
+			b.place(cell / size, cell % size, stone);
+		}
+		return b;
+	}
+}
@@ -0,0 +1,169 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * 选择性剪枝基准：各剪枝开关组合在同一组战术题上的节点数、每秒节点数与正确率。
+ * 题目由固定种子的随机对局生成，只用棋型与威胁空间搜索判断，与被测的主搜索无关：
+ * - 取胜题：轮到的一方有 VCT（不能直接成五），正确 = 搜索得分为必胜
+ * - 防守题：对方有 VCT，己方没有，正确 = 落子后对方不再有 VCT
+ * 搜索时关闭主搜索前的威胁空间搜索与开局库，只考察主搜索本身。
+ * 给定深度大于 4 时同时报告深度 4 的结果（浅层的缩减/剪枝更容易漏掉防守）。
+ *
+ * 用法：java PruningBenchmark [搜索深度] [每类题数] [种子]
+ * 例如：java PruningBenchmark 6 30 1
+ */
+public class PruningBenchmark {
+
+	private static final int BOARD_SIZE = 15;
+	private static final int MAX_PLIES = 120;
+	// 随机对局每步在静态分最高的几个候选点中随机选择
+	private static final int PLAYOUT_WIDTH = 3;
+	private static final int GAIN_CAP = 1_000_000;
+	private static final long SOLVER_NODES = 200_000;
+	// 除给定深度外一并测量的浅层深度
+	private static final int SHALLOW_DEPTH = 4;
+
+	// 开关组合：{名称, LMR, 冲四剪枝, 无望剪枝}
+	private static final Object[][] CONFIGS = {
+		{"全部关闭", false, false, false},
+		{"LMR", true, false, false},
+		{"冲四剪枝", false, true, false},
+		{"无望剪枝", false, false, true},
+		{"全部开启", true, true, true},
+	};
+
+	/** 一道题：局面、轮到的一方，以及是取胜题还是防守题 */
+	private static final class Puzzle {
+		final BitBoard board;
+		final int color;
+		final boolean win;
+
+		Puzzle(BitBoard board, int color, boolean win) {
+			this.board = board;
+			this.color = color;
+			this.win = win;
+		}
+	}
+
+	public static void main(String[] args) {
+		int depth = args.length > 0 ? Integer.parseInt(args[0]) : 6;
+		int perKind = args.length > 1 ? Integer.parseInt(args[1]) : 30;
+		long seed = args.length > 2 ? Long.parseLong(args[2]) : 1L;
+
+		List<Puzzle> puzzles = generate(new SplittableRandom(seed), perKind);
+		long winCount = puzzles.stream().filter(p -> p.win).count();
+		System.out.printf("战术题 %d 道（取胜 %d，防守 %d）%n", puzzles.size(), winCount, puzzles.size() - winCount);
+
+		// 预热 JIT
+		run(puzzles, Math.min(depth, SHALLOW_DEPTH), true, true, true);
+
+		// 剪枝在浅层更容易漏掉战术，除给定深度外总是再测一次浅层
+		int[] depths = depth > SHALLOW_DEPTH ? new int[] {SHALLOW_DEPTH, depth} : new int[] {depth};
+		for (int d : depths) {
+			System.out.println("搜索深度 " + d);
+			for (Object[] config : CONFIGS) {
+				long[] r = run(puzzles, d, (Boolean) config[1], (Boolean) config[2], (Boolean) config[3]);
+				System.out.printf("%-6s 节点数 %9d（静态搜索 %8d） 耗时 %6d ms  %8.0f 节点/秒  取胜 %d/%d  防守 %d/%d%n",
+						config[0], r[0], r[1], r[2], (r[0] + r[1]) * 1000.0 / Math.max(1, r[2]), r[3], winCount, r[4],
+						puzzles.size() - winCount);
+			}
+		}
+	}
+
+	// 返回 {主搜索节点, 静态搜索节点, 耗时 ms, 取胜题正确数, 防守题正确数}
+	private static long[] run(List<Puzzle> puzzles, int depth, boolean lmr, boolean fourPruning, boolean futility) {
+		long[] totals = new long[5];
+		long nanos = 0;
+		for (Puzzle p : puzzles) {
+			Minimax ai = new Minimax(new Board(BOARD_SIZE), 16);
+			ai.setOpeningBook(null);
+			ai.setThreatSearch(false);
+			ai.setLateMoveReduction(lmr);
+			ai.setFourPruning(fourPruning);
+			ai.setFutilityPruning(futility);
+			long start = System.nanoTime();
+			SearchResult result = ai.search(Position.of(p.board, p.color), SearchLimit.depth(depth));
+			nanos += System.nanoTime() - start;
+			totals[0] += result.getStats().getNodes();
+			totals[1] += result.getStats().getQuiescenceNodes();
+			if (p.win) {
+				if (Minimax.isWinningScore(result.getScore())) totals[3]++;
+			} else if (result.hasMove() && defends(p, result.getMove())) {
+				totals[4]++;
+			}
+		}
+		totals[2] = nanos / 1_000_000;
+		return totals;
+	}
+
+	// 落子后对方不再有 VCT（威胁空间搜索超出预算视为未防住）
+	private static boolean defends(Puzzle p, int[] move) {
+		BitBoard b = new BitBoard(p.board);
+		b.place(move[0], move[1], p.color);
+		ThreatSolver solver = new ThreatSolver(b);
+		return !solver.solve(opponent(p.color), true, ThreatSolver.DEFAULT_VCT_DEPTH, SOLVER_NODES, 0)
+				&& !solver.isAborted();
+	}
+
+	// 随机对局中收集取胜题与防守题，各 perKind 道
+	private static List<Puzzle> generate(SplittableRandom random, int perKind) {
+		List<Puzzle> puzzles = new ArrayList<>();
+		int wins = 0;
+		int defences = 0;
+		int[] mask = new int[BOARD_SIZE];
+		for (int game = 0; game < perKind * 50 && (wins < perKind || defences < perKind); game++) {
+			BitBoard b = new BitBoard(BOARD_SIZE);
+			b.place(BOARD_SIZE / 2, BOARD_SIZE / 2, BitBoard.BLACK);
+			int color = BitBoard.WHITE;
+			for (int ply = 1; ply < MAX_PLIES; ply++) {
+				int opp = opponent(color);
+				// 已经可以直接成五的局面不算题目，对局到此结束
+				if (b.collectThreatCells(color, BitBoard.FIVE, mask) > 0) break;
+				if (b.collectThreatCells(opp, BitBoard.FIVE, mask) == 0 && b.getStoneCount() >= 8) {
+					boolean attack = new ThreatSolver(b).solve(color, true, ThreatSolver.DEFAULT_VCT_DEPTH, SOLVER_NODES, 0);
+					if (attack && wins < perKind) {
+						puzzles.add(new Puzzle(new BitBoard(b), color, true));
+						wins++;
+					} else if (!attack && defences < perKind
+							&& new ThreatSolver(b).solve(opp, true, ThreatSolver.DEFAULT_VCT_DEPTH, SOLVER_NODES, 0)) {
+						puzzles.add(new Puzzle(new BitBoard(b), color, false));
+						defences++;
+					}
+				}
+				int cell = playoutMove(b, color, random);
+				if (cell < 0) break;
+				b.place(cell / BOARD_SIZE, cell % BOARD_SIZE, color);
+				color = opp;
+			}
+		}
+		return puzzles;
+	}
+
+	// 在进攻分加倍后的静态分最高的 PLAYOUT_WIDTH 个候选点中随机选一个，没有候选点时返回 -1
+	private static int playoutMove(BitBoard b, int color, SplittableRandom random) {
+		int[] moves = b.generateMoves();
+		if (moves.length == 0) return -1;
+		int[] scores = new int[moves.length];
+		for (int i = 0; i < moves.length; i++) {
+			int row = moves[i] / BOARD_SIZE;
+			int col = moves[i] % BOARD_SIZE;
+			scores[i] = 2 * b.moveGain(row, col, color, GAIN_CAP) + b.moveGain(row, col, opponent(color), GAIN_CAP);
+		}
+		int width = Math.min(PLAYOUT_WIDTH, moves.length);
+		// 部分选择排序出前 width 个
+		for (int i = 0; i < width; i++) {
+			int best = i;
+			for (int j = i + 1; j < moves.length; j++) {
+				if (scores[j] > scores[best]) best = j;
+			}
+			int m = moves[i]; moves[i] = moves[best]; moves[best] = m;
+			int s = scores[i]; scores[i] = scores[best]; scores[best] = s;
+		}
+		return moves[random.nextInt(width)];
+	}
+
+	private static int opponent(int color) {
+		return color == BitBoard.WHITE ? BitBoard.BLACK : BitBoard.WHITE;
+	}
+}
@@ -0,0 +1,66 @@
+import java.io.OutputStream;
+import java.io.PrintStream;
+
+/**
+ * 搜索边界情况的回归检查，任何一项不符合即抛出 IllegalStateException：
+ * - 棋盘已满：calculateNextMove 返回 null，search 的结果没有着法；
+ *   同一个引擎之前搜索过其他局面时也不能沿用上一次的着法
+ *
+ * 用法：java SearchCheck
+ */
+public class SearchCheck {
+
+	private static final int BOARD_SIZE = 15;
+	// 先落下的棋子数，用来让引擎在棋盘填满之前完成一次正常的搜索
+	private static final int OPENING_STONES = 10;
+
+	public static void main(String[] args) {
+		PrintStream console = System.out;
+		System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+		checkFullBoard();
+		console.println("搜索边界检查通过");
+	}
+
+	private static void checkFullBoard() {
+		Board board = new Board(BOARD_SIZE);
+		int[][] cells = fillOrder();
+		for (int i = 0; i < OPENING_STONES; i++) place(board, cells[i]);
+		Minimax ai = new Minimax(board, 4);
+		ai.setOpeningBook(null);
+		ai.setThreads(1);
+		if (ai.calculateNextMove(SearchLimit.depth(3)) == null) {
+			throw new IllegalStateException("有空位时应返回着法");
+		}
+
+		for (int i = OPENING_STONES; i < cells.length; i++) place(board, cells[i]);
+		int[] move = ai.calculateNextMove(SearchLimit.depth(3));
+		if (move != null) {
+			throw new IllegalStateException("棋盘已满时应返回 null，实际为 " + move[0] + "," + move[1]);
+		}
+		if (ai.search(Position.of(board, BitBoard.WHITE), SearchLimit.depth(3)).hasMove()) {
+			throw new IllegalStateException("棋盘已满时 search 不应有着法");
+		}
+	}
+
+	// 从中心向外的落子顺序 {行, 列}
+	private static int[][] fillOrder() {
+		int n = BOARD_SIZE;
+		int[][] cells = new int[n * n][];
+		int count = 0;
+		for (int radius = 0; radius <= n / 2; radius++) {
+			for (int row = n / 2 - radius; row <= n / 2 + radius; row++) {
+				for (int col = n / 2 - radius; col <= n / 2 + radius; col++) {
+					if (Math.max(Math.abs(row - n / 2), Math.abs(col - n / 2)) == radius) cells[count++] = new int[] {row, col};
+				}
+			}
+		}
+		return cells;
+	}
+
+	// 按 (列 + 2*行) mod 4 交替黑白：横向、纵向与两条对角线上最多两子相连，填满也不会成五
+	private static void place(Board board, int[] cell) {
+		int row = cell[0];
+		int col = cell[1];
+		board.addStoneNoGUI(col, row, (col + 2 * row) % 4 < 2);
+	}
+}
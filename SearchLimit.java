@@ -0,0 +1,51 @@
+/**
+ * AI 搜索限制：最大深度 + 可选的时间预算。
+ * - SearchLimit.depth(d)：搜索到固定深度 d（迭代加深，从 1 到 d）
+ * - SearchLimit.time(ms)：迭代加深直到用完时间预算，返回最后一次完整搜索的结果
+ * 不可变对象，可在多个搜索之间共享。
+ */
+public final class SearchLimit {
+
+	// 限时搜索时的深度上限
+	public static final int MAX_DEPTH = 32;
+
+	private final int maxDepth;
+	private final long timeMillis; // 0 表示不限时
+
+	private SearchLimit(int maxDepth, long timeMillis) {
+		this.maxDepth = Math.max(1, Math.min(maxDepth, MAX_DEPTH));
+		this.timeMillis = Math.max(0, timeMillis);
+	}
+
+	public static SearchLimit depth(int depth) {
+		return new SearchLimit(depth, 0);
+	}
+
+	public static SearchLimit time(long millis) {
+		return new SearchLimit(MAX_DEPTH, Math.max(1, millis));
+	}
+
+	public static SearchLimit of(int depth, long millis) {
+		return new SearchLimit(depth, millis);
+	}
+
+	public int getMaxDepth() {
+		return maxDepth;
+	}
+
+	public long getTimeMillis() {
+		return timeMillis;
+	}
+
+	public boolean isTimed() {
+		return timeMillis > 0;
+	}
+
+	// 界面与日志中显示的难度描述
+	@Override
+	public String toString() {
+		if (!isTimed()) return "深度=" + maxDepth;
+		if (maxDepth >= MAX_DEPTH) return "限时=" + timeMillis + "ms";
+		return "深度=" + maxDepth + " 限时=" + timeMillis + "ms";
+	}
+}
@@ -0,0 +1,73 @@
+/**
+ * Engine.search 的结果：着法、得分、完成的深度与统计数据。不可变对象。
+ * 得分从轮到落子一方的视角计算，正数对该方有利；没有可下的位置时着法为 NO_MOVE。
+ */
+public final class SearchResult {
+
+	public static final int NO_MOVE = TranspositionTable.NO_MOVE;
+
+	private final int size;
+	private final int cell;           // 行*n+列，或 NO_MOVE
+	private final int score;
+	private final int depth;
+	private final SearchStats stats;
+	private final int[] winningLine;  // 威胁空间搜索找到的强制取胜序列，没有则为 null
+	private final boolean bookHit;
+	private final boolean ponderHit;
+
+	public SearchResult(int size, int cell, int score, int depth, SearchStats stats, int[] winningLine,
+			boolean bookHit, boolean ponderHit) {
+		this.size = size;
+		this.cell = cell;
+		this.score = score;
+		this.depth = depth;
+		this.stats = stats;
+		this.winningLine = winningLine;
+		this.bookHit = bookHit;
+		this.ponderHit = ponderHit;
+	}
+
+	public boolean hasMove() {
+		return cell != NO_MOVE;
+	}
+
+	// 着法的格子编号（行*n+列），没有着法时为 NO_MOVE
+	public int getCell() {
+		return cell;
+	}
+
+	// 着法 {行(y), 列(x)}，没有着法时为 null
+	public int[] getMove() {
+		return hasMove() ? new int[] {cell / size, cell % size} : null;
+	}
+
+	public int getScore() {
+		return score;
+	}
+
+	public int getDepth() {
+		return depth;
+	}
+
+	public SearchStats getStats() {
+		return stats;
+	}
+
+	public int[] getWinningLine() {
+		return winningLine == null ? null : winningLine.clone();
+	}
+
+	public boolean isBookHit() {
+		return bookHit;
+	}
+
+	public boolean isPonderHit() {
+		return ponderHit;
+	}
+
+	// 作为后台思考命中的结果返回：着法与深度不变，统计只记录本次的耗时
+	SearchResult asPonderHit(long elapsedMillis) {
+		SearchStats hit = new SearchStats(0, 0, 0, 0, 0, 0, 0, depth, elapsedMillis, elapsedMillis);
+		return new SearchResult(size, cell, score, depth, hit, null, false, true);
+	}
+}
@@ -0,0 +1,124 @@
+/**
+ * 一次搜索的统计数据，随着法一起由引擎返回（Engine.getLastStats）。
+ * 不可变对象：搜索结束时由各搜索线程的计数器汇总生成，界面、日志与对局导出可以直接读取，
+ * 不同引擎实例、不同线程之间互不影响。
+ *
+ * - nodes：主搜索访问的节点数（MCTS 为模拟次数）
+ * - leaves：叶子节点评估次数（含静态搜索中的评估）
+ * - quiescenceNodes：静态搜索在叶子之后展开的节点数，不计入 nodes
+ * - cutoffs：beta 截断次数，firstMoveCutoffs 为其中由第一个着法产生的次数（衡量着法排序质量）
+ * - ttProbes/ttHits：置换表查询与命中次数
+ * - depth：完整完成的搜索深度
+ * - elapsedMillis：搜索耗时；firstMoveMillis：得到第一个可用着法（完成深度 1）的耗时
+ */
+public final class SearchStats {
+
+	/** 没有进行搜索（引擎尚未走棋）时的统计 */
+	public static final SearchStats EMPTY = new SearchStats(0, 0, 0, 0, 0, 0, 0, 0, 0, 0);
+
+	/** toCsvRow 各列的列名 */
+	public static final String CSV_HEADER = "nodes,leaves,quiescence_nodes,cutoffs,first_move_cutoffs,tt_probes,tt_hits,depth,elapsed_ms,first_move_ms,nps";
+
+	private final long nodes;
+	private final long leaves;
+	private final long quiescenceNodes;
+	private final long cutoffs;
+	private final long firstMoveCutoffs;
+	private final long ttProbes;
+	private final long ttHits;
+	private final int depth;
+	private final long elapsedMillis;
+	private final long firstMoveMillis;
+
+	public SearchStats(long nodes, long leaves, long quiescenceNodes, long cutoffs, long firstMoveCutoffs, long ttProbes,
+			long ttHits, int depth, long elapsedMillis, long firstMoveMillis) {
+		this.nodes = nodes;
+		this.leaves = leaves;
+		this.quiescenceNodes = quiescenceNodes;
+		this.cutoffs = cutoffs;
+		this.firstMoveCutoffs = firstMoveCutoffs;
+		this.ttProbes = ttProbes;
+		this.ttHits = ttHits;
+		this.depth = depth;
+		this.elapsedMillis = elapsedMillis;
+		this.firstMoveMillis = firstMoveMillis;
+	}
+
+	public long getNodes() {
+		return nodes;
+	}
+
+	public long getLeaves() {
+		return leaves;
+	}
+
+	public long getQuiescenceNodes() {
+		return quiescenceNodes;
+	}
+
+	public long getCutoffs() {
+		return cutoffs;
+	}
+
+	public long getFirstMoveCutoffs() {
+		return firstMoveCutoffs;
+	}
+
+	// 第一个着法产生截断的比例，没有截断时为 0
+	public double getFirstMoveCutoffRate() {
+		return cutoffs == 0 ? 0.0 : (double) firstMoveCutoffs / cutoffs;
+	}
+
+	public long getTtProbes() {
+		return ttProbes;
+	}
+
+	public long getTtHits() {
+		return ttHits;
+	}
+
+	// 置换表命中率，没有查询时为 0
+	public double getTtHitRate() {
+		return ttProbes == 0 ? 0.0 : (double) ttHits / ttProbes;
+	}
+
+	public int getDepth() {
+		return depth;
+	}
+
+	public long getElapsedMillis() {
+		return elapsedMillis;
+	}
+
+	public long getFirstMoveMillis() {
+		return firstMoveMillis;
+	}
+
+	// 每秒节点数（主搜索与静态搜索合计）；耗时不足 1 ms 时按 1 ms 计
+	public long getNodesPerSecond() {
+		return (nodes + quiescenceNodes) * 1000 / Math.max(1, elapsedMillis);
+	}
+
+	/** 与 CSV_HEADER 对应的一行 */
+	public String toCsvRow() {
+		return nodes + "," + leaves + "," + quiescenceNodes + "," + cutoffs + "," + firstMoveCutoffs + "," + ttProbes + ","
+				+ ttHits + "," + depth + "," + elapsedMillis + "," + firstMoveMillis + "," + getNodesPerSecond();
+	}
+
+	/** 单行 JSON 对象 */
+	public String toJson() {
+		return "{\"nodes\":" + nodes + ",\"leaves\":" + leaves + ",\"quiescence_nodes\":" + quiescenceNodes
+				+ ",\"cutoffs\":" + cutoffs + ",\"first_move_cutoffs\":" + firstMoveCutoffs + ",\"tt_probes\":" + ttProbes
+				+ ",\"tt_hits\":" + ttHits
+				+ ",\"depth\":" + depth + ",\"elapsed_ms\":" + elapsedMillis + ",\"first_move_ms\":" + firstMoveMillis
+				+ ",\"nps\":" + getNodesPerSecond() + "}";
+	}
+
+	// 日志中的一行摘要
+	@Override
+	public String toString() {
+		return String.format("节点数: %d 叶子数: %d 静态搜索节点: %d 截断: %d（首着截断 %.1f%%） 置换表: %d/%d（命中 %.1f%%）"
+				+ " 搜索深度: %d 首个着法: %d ms 计算耗时: %d ms 节点/秒: %d", nodes, leaves, quiescenceNodes, cutoffs,
+				100 * getFirstMoveCutoffRate(), ttHits, ttProbes, 100 * getTtHitRate(), depth, firstMoveMillis, elapsedMillis, getNodesPerSecond());
+	}
+}
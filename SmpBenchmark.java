@@ -0,0 +1,69 @@
+import java.io.OutputStream;
+import java.io.PrintStream;
+
+/**
+ * Lazy SMP 基准测试：测量不同线程数下搜索到固定深度所需的时间（time-to-depth）。
+ * 用法：java SmpBenchmark [深度] [线程数列表，逗号分隔]
+ * 例如：java SmpBenchmark 7 1,2,4,8,16
+ * 每个局面、每种线程数都使用新的 Minimax（空置换表），结果取全部局面的总耗时，
+ * 加速比 = 单线程总耗时 / N 线程总耗时。
+ */
+public class SmpBenchmark {
+
+	// 测试局面：黑白交替的落子序列 {x, y}，黑棋先手
+	static final int[][][] POSITIONS = {
+		{{7,7},{7,8},{8,8},{6,6},{8,7},{9,7},{6,8},{5,9}},
+		{{7,7},{8,8},{6,8},{8,6},{8,7},{6,7},{9,9},{5,5},{7,9},{7,6}},
+		{{7,7},{6,7},{8,6},{9,5},{7,6},{7,5},{6,5},{8,7},{5,4},{4,3},{8,5}},
+		{{7,7},{8,7},{7,8},{7,6},{8,9},{9,10},{6,8},{5,8},{6,9},{9,9},{6,7},{6,10}},
+		{{7,7},{7,6},{6,6},{8,8},{5,5},{4,4},{6,5},{6,4},{8,6},{5,7},{7,5},{8,5},{5,6},{4,7}},
+		{{7,7},{6,8},{8,6},{9,5},{8,8},{8,7},{6,6},{5,5},{9,9},{10,10},{7,9},{7,10},{6,10},{9,7},{10,7},{5,11}}
+	};
+
+	public static void main(String[] args) {
+		int depth = args.length > 0 ? Integer.parseInt(args[0]) : 6;
+		int[] threadCounts = {1, 2, 4, 8};
+		if (args.length > 1) {
+			String[] parts = args[1].split(",");
+			threadCounts = new int[parts.length];
+			for (int i = 0; i < parts.length; i++) threadCounts[i] = Integer.parseInt(parts[i].trim());
+		}
+
+		// 只输出基准结果，屏蔽引擎每步的统计日志
+		PrintStream console = System.out;
+		System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+		console.println("CPU 核心数: " + Runtime.getRuntime().availableProcessors() + "  搜索深度: " + depth);
+
+		// 预热 JIT
+		runAll(Math.min(depth, 4), 1);
+
+		long baseline = 0;
+		for (int threads : threadCounts) {
+			long[] result = runAll(depth, threads);
+			if (baseline == 0) baseline = result[0];
+			console.printf("线程数 %2d  总耗时 %7d ms  节点数 %10d  加速比 %.2f%n",
+					threads, result[0], result[1], baseline / (double) Math.max(1, result[0]));
+		}
+	}
+
+	// 返回 {总耗时 ms, 总节点数}
+	private static long[] runAll(int depth, int threads) {
+		long totalMillis = 0;
+		long totalNodes = 0;
+		for (int[][] moves : POSITIONS) {
+			Board board = new Board(15);
+			boolean black = true;
+			for (int[] m : moves) {
+				board.addStone(m[0], m[1], black);
+				black = !black;
+			}
+			Minimax ai = new Minimax(board);
+			ai.setThreads(threads);
+			long start = System.nanoTime();
+			ai.calculateNextMove(SearchLimit.depth(depth));
+			totalMillis += (System.nanoTime() - start) / 1_000_000L;
+			totalNodes += ai.getLastNodeCount();
+		}
+		return new long[] {totalMillis, totalNodes};
+	}
+}
@@ -0,0 +1,235 @@
+/**
+ * 威胁空间搜索：在主搜索之前寻找连续冲四（VCF）或连续活三/冲四（VCT）取胜的强制序列。
+ * 进攻方只走威胁着法（成四、VCT 时还包括成活三），防守方只考虑必须的应对：
+ * - 进攻方成四：防守方只能堵唯一的成五点（两个成五点则进攻方获胜）；
+ * - 进攻方成活三：防守方可堵活三的缺口/两端，或者用自己的冲四反击。
+ * 防守方一旦可以直接成五，该分支即失败；防守方冲四时，进攻方的应对点本身也必须是威胁，
+ * 否则放弃该分支。因此找到的胜利序列是可靠的，找不到不代表没有。
+ * 搜索有节点数与时间预算，超出预算即视为未找到。
+ */
+public class ThreatSolver {
+
+	// 进攻方最多走多少步威胁
+	public static final int DEFAULT_VCF_DEPTH = 12;
+	public static final int DEFAULT_VCT_DEPTH = 6;
+
+	private static final int MAX_PLY = 64;
+
+	private final BitBoard board;
+	private final int size;
+
+	private long nodeLimit;
+	private long deadline;
+	private long nodes;
+	private boolean aborted;
+	// 由其他线程置位，要求搜索尽快结束
+	private volatile boolean cancelled;
+
+	// 每层的候选位掩码缓冲区，避免递归中反复分配
+	private final int[][] cellBuffers;
+	// 三角形主变例表：pv[ply] 保存从 ply 开始的胜利序列
+	private final int[][] pv = new int[MAX_PLY][MAX_PLY];
+	private final int[] pvLength = new int[MAX_PLY];
+
+	private int[] winningLine;
+
+	public ThreatSolver(BitBoard board) {
+		this.board = board;
+		this.size = board.getSize();
+		this.cellBuffers = new int[MAX_PLY * 2][size];
+	}
+
+	/**
+	 * 为 attacker 寻找强制胜利序列。
+	 * vct 为 false 时只用冲四（VCF），为 true 时还使用活三（VCT）。
+	 * 返回是否找到；找到时 getWinningLine() 给出双方交替的着法序列（格子编号）。
+	 */
+	public boolean solve(int attacker, boolean vct, int maxDepth, long maxNodes, long timeMillis) {
+		nodeLimit = maxNodes;
+		deadline = timeMillis > 0 ? System.nanoTime() + timeMillis * 1_000_000L : 0L;
+		nodes = 0;
+		aborted = false;
+		winningLine = null;
+
+		// 迭代加深：优先找到最短的胜利序列
+		for (int depth = 1; depth <= maxDepth && !aborted; depth++) {
+			if (attack(attacker, vct, depth, 0)) {
+				winningLine = java.util.Arrays.copyOf(pv[0], pvLength[0]);
+				return true;
+			}
+		}
+		return false;
+	}
+
+	public int[] getWinningLine() {
+		return winningLine;
+	}
+
+	public long getNodeCount() {
+		return nodes;
+	}
+
+	public boolean isAborted() {
+		return aborted;
+	}
+
+	/** 从其他线程取消搜索（包括之后的 solve 调用），solve 随即返回 false */
+	public void cancel() {
+		cancelled = true;
+	}
+
+	private boolean budgetExceeded() {
+		if (aborted) return true;
+		if (cancelled || ++nodes >= nodeLimit) aborted = true;
+		else if (deadline != 0L && (nodes & 255) == 0 && System.nanoTime() >= deadline) aborted = true;
+		return aborted;
+	}
+
+	// 进攻方走棋
+	private boolean attack(int color, boolean vct, int depth, int ply) {
+		pvLength[ply] = ply;
+		if (budgetExceeded() || ply + 2 >= MAX_PLY) return false;
+		int opp = other(color);
+		int[] cells = cellBuffers[ply * 2];
+
+		// 可以直接成五
+		if (board.collectThreatCells(color, BitBoard.FIVE, cells) > 0) {
+			pv[ply][ply] = firstCell(cells);
+			pvLength[ply] = ply + 1;
+			return true;
+		}
+		if (depth == 0) return false;
+
+		// 对方有成五点：必须去堵；两个以上则堵不住
+		int defenderFives = board.collectThreatCells(opp, BitBoard.FIVE, cells);
+		if (defenderFives >= 2) return false;
+		if (defenderFives == 1) {
+			int cell = firstCell(cells);
+			// 堵点本身必须是威胁，否则失去先手
+			if (!isThreat(cell, color, vct)) return false;
+			return tryAttack(cell, color, vct, depth, ply);
+		}
+
+		// 先试冲四，再试活三
+		if (board.collectThreatCells(color, BitBoard.FOUR, cells) > 0) {
+			for (int r = 0; r < size; r++) {
+				int bits = cells[r];
+				while (bits != 0) {
+					int c = Integer.numberOfTrailingZeros(bits);
+					bits &= bits - 1;
+					if (tryAttack(r * size + c, color, vct, depth, ply)) return true;
+					if (aborted) return false;
+				}
+			}
+		}
+		if (vct) {
+			int[] threes = cellBuffers[ply * 2 + 1];
+			if (board.collectThreatCells(color, BitBoard.THREE, threes) > 0) {
+				for (int r = 0; r < size; r++) {
+					// 已作为冲四试过的点跳过
+					int bits = threes[r] & ~cells[r];
+					while (bits != 0) {
+						int c = Integer.numberOfTrailingZeros(bits);
+						bits &= bits - 1;
+						if (tryAttack(r * size + c, color, vct, depth, ply)) return true;
+						if (aborted) return false;
+					}
+				}
+			}
+		}
+		return false;
+	}
+
+	private boolean tryAttack(int cell, int color, boolean vct, int depth, int ply) {
+		int row = cell / size;
+		int col = cell % size;
+		board.place(row, col, color);
+		boolean win = defend(color, vct, depth - 1, ply + 1);
+		board.remove(row, col);
+		if (win) {
+			pv[ply][ply] = cell;
+			System.arraycopy(pv[ply + 1], ply + 1, pv[ply], ply + 1, pvLength[ply + 1] - (ply + 1));
+			pvLength[ply] = pvLength[ply + 1];
+		}
+		return win;
+	}
+
+	// 防守方应对；返回 true 表示所有应对都会输
+	private boolean defend(int attacker, boolean vct, int depth, int ply) {
+		pvLength[ply] = ply;
+		if (budgetExceeded() || ply + 2 >= MAX_PLY) return false;
+		int color = other(attacker);
+		int[] cells = cellBuffers[ply * 2];
+
+		// 防守方可以直接成五
+		if (board.collectThreatCells(color, BitBoard.FIVE, cells) > 0) return false;
+
+		int attackerFives = board.collectThreatCells(attacker, BitBoard.FIVE, cells);
+		if (attackerFives >= 2) {
+			// 两个成五点，堵不住：记录防守方堵其中一个，进攻方在另一个成五
+			int block = firstCell(cells);
+			cells[block / size] &= ~(1 << (block % size));
+			pv[ply][ply] = block;
+			pv[ply][ply + 1] = firstCell(cells);
+			pvLength[ply] = ply + 2;
+			return true;
+		}
+		if (attackerFives == 1) {
+			return tryDefense(firstCell(cells), attacker, vct, depth, ply);
+		}
+
+		// 对活三的应对：缺口与两端，加上防守方自己的冲四反击
+		board.collectThreatCells(attacker, BitBoard.THREE_DEFENSE, cells);
+		int[] counters = cellBuffers[ply * 2 + 1];
+		board.collectThreatCells(color, BitBoard.FOUR, counters);
+		boolean any = false;
+		for (int r = 0; r < size; r++) {
+			int bits = cells[r] | counters[r];
+			while (bits != 0) {
+				int c = Integer.numberOfTrailingZeros(bits);
+				bits &= bits - 1;
+				any = true;
+				if (!tryDefense(r * size + c, attacker, vct, depth, ply)) return false;
+			}
+		}
+		// 没有任何需要应对的威胁（不应出现），视为失败
+		return any;
+	}
+
+	private boolean tryDefense(int cell, int attacker, boolean vct, int depth, int ply) {
+		int row = cell / size;
+		int col = cell % size;
+		board.place(row, col, other(attacker));
+		boolean win = attack(attacker, vct, depth, ply + 1);
+		board.remove(row, col);
+		if (win) {
+			pv[ply][ply] = cell;
+			System.arraycopy(pv[ply + 1], ply + 1, pv[ply], ply + 1, pvLength[ply + 1] - (ply + 1));
+			pvLength[ply] = pvLength[ply + 1];
+		}
+		return win;
+	}
+
+	// 在 cell 落子后是否形成威胁（冲四；VCT 时还包括活三）
+	private boolean isThreat(int cell, int color, boolean vct) {
+		int row = cell / size;
+		int col = cell % size;
+		int[] scratch = cellBuffers[MAX_PLY * 2 - 1];
+		board.place(row, col, color);
+		boolean threat = board.collectThreatCells(color, BitBoard.FIVE, scratch) > 0
+				|| (vct && board.collectThreatCells(color, BitBoard.THREE_DEFENSE, scratch) > 0);
+		board.remove(row, col);
+		return threat;
+	}
+
+	private int firstCell(int[] cells) {
+		for (int r = 0; r < size; r++) {
+			if (cells[r] != 0) return r * size + Integer.numberOfTrailingZeros(cells[r]);
+		}
+		return -1;
+	}
+
+	private static int other(int color) {
+		return color == BitBoard.WHITE ? BitBoard.BLACK : BitBoard.WHITE;
+	}
+}
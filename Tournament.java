@@ -0,0 +1,495 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 无界面的引擎对战赛：两个引擎配置（A、B）在多个线程上并行自对弈，用于衡量引擎改动是否有效。
+ * - 开局随机：中心附近随机落几子（不成五），每个开局 A、B 各执一次黑棋
+ * - 统计：A 的胜/和/负、得分率与 Elo 估计，双方的平均每步耗时与每秒节点数
+ * - SPRT：给定 elo0、elo1 时每局结束后计算对数似然比，越过界限即停止开新对局
+ * - 每局结束立即把结果追加到 CSV 或 JSON（每行一个对象）文件
+ *
+ * 用法：java Tournament [-a 引擎] [-b 引擎] [-games 局数] [-workers 线程数] [-opening 开局子数]
+ *                       [-sprt elo0,elo1[,alpha,beta]] [-out 结果文件.csv|.json] [-seed 种子]
+ * 引擎格式：类型:参数=值,...  类型为 minimax 或 mcts，参数：
+ *   depth 深度、time 每步毫秒、threads 搜索线程数（默认 1）、hash 置换表 MB（默认 16）、
+ *   threat on/off 威胁空间搜索、qs on/off 叶子节点的静态搜索、
+ *   lmr/four/futility on/off 后期着法缩减/冲四剪枝/无望剪枝、nnue 神经网络权重文件
+ * 例如：java Tournament -a minimax:depth=4,nnue=assets/nnue.bin -b minimax:depth=4 -games 1000 -sprt 0,10
+ */
+public class Tournament {
+
+	private static final int BOARD_SIZE = 15;
+	private static final int MAX_PLIES = BOARD_SIZE * BOARD_SIZE;
+
+	// 对局结果（A 的视角）
+	static final int A_WINS = 1;
+	static final int DRAW = 0;
+	static final int B_WINS = -1;
+
+	/** 引擎配置：解析命令行中的引擎描述，并为每局对局创建新的引擎实例 */
+	static final class EngineSpec {
+		final String text;
+		final String type;
+		final SearchLimit limit;
+		final int threads;
+		final int hashMegabytes;
+		final boolean threatSearch;
+		final boolean quiescence;
+		final boolean lateMoveReduction;
+		final boolean fourPruning;
+		final boolean futilityPruning;
+		final Nnue nnue;
+
+		private EngineSpec(String text, String type, SearchLimit limit, int threads, int hashMegabytes,
+				boolean threatSearch, boolean quiescence, boolean lateMoveReduction, boolean fourPruning,
+				boolean futilityPruning, Nnue nnue) {
+			this.text = text;
+			this.type = type;
+			this.limit = limit;
+			this.threads = threads;
+			this.hashMegabytes = hashMegabytes;
+			this.threatSearch = threatSearch;
+			this.quiescence = quiescence;
+			this.lateMoveReduction = lateMoveReduction;
+			this.fourPruning = fourPruning;
+			this.futilityPruning = futilityPruning;
+			this.nnue = nnue;
+		}
+
+		static EngineSpec parse(String text) throws IOException {
+			int colon = text.indexOf(':');
+			String type = colon < 0 ? text : text.substring(0, colon);
+			if (!type.equals("minimax") && !type.equals("mcts")) {
+				throw new IllegalArgumentException("未知的引擎类型: " + type);
+			}
+			int depth = 0;
+			long time = 0;
+			int threads = 1;
+			int hash = 16;
+			boolean threat = true;
+			boolean qs = true;
+			boolean lmr = true;
+			boolean four = true;
+			boolean futility = true;
+			Nnue nnue = null;
+			if (colon >= 0 && colon + 1 < text.length()) {
+				for (String option : text.substring(colon + 1).split(",")) {
+					int eq = option.indexOf('=');
+					if (eq < 0) throw new IllegalArgumentException("引擎参数应为 键=值: " + option);
+					String key = option.substring(0, eq);
+					String value = option.substring(eq + 1);
+					switch (key) {
+						case "depth" -> depth = Integer.parseInt(value);
+						case "time" -> time = Long.parseLong(value);
+						case "threads" -> threads = Integer.parseInt(value);
+						case "hash" -> hash = Integer.parseInt(value);
+						case "threat" -> threat = value.equals("on");
+						case "qs" -> qs = value.equals("on");
+						case "lmr" -> lmr = value.equals("on");
+						case "four" -> four = value.equals("on");
+						case "futility" -> futility = value.equals("on");
+						case "nnue" -> nnue = Nnue.load(Paths.get(value));
+						default -> throw new IllegalArgumentException("未知的引擎参数: " + key);
+					}
+				}
+			}
+			SearchLimit limit;
+			if (depth > 0 && time > 0) limit = SearchLimit.of(depth, time);
+			else if (time > 0) limit = SearchLimit.time(time);
+			else limit = SearchLimit.depth(depth > 0 ? depth : 3);
+			return new EngineSpec(text, type, limit, threads, hash, threat, qs, lmr, four, futility, nnue);
+		}
+
+		// 引擎绑定到 board，AI 总是执白，轮到黑棋时由调用方交换颜色
+		Engine create(Board board) {
+			Engine engine;
+			if (type.equals("mcts")) {
+				engine = new MctsEngine(board);
+			} else {
+				Minimax minimax = new Minimax(board, hashMegabytes);
+				minimax.setOpeningBook(null);
+				minimax.setThreatSearch(threatSearch);
+				minimax.setQuiescence(quiescence);
+				minimax.setLateMoveReduction(lateMoveReduction);
+				minimax.setFourPruning(fourPruning);
+				minimax.setFutilityPruning(futilityPruning);
+				minimax.setNnue(nnue);
+				engine = minimax;
+			}
+			engine.setThreads(threads);
+			return engine;
+		}
+	}
+
+	/** 一方在一局中的用时与节点数 */
+	private static final class SideStats {
+		int moves;
+		long nanos;
+		long nodes;
+	}
+
+	/** 累计统计，所有工作线程共享，方法均为同步方法 */
+	private static final class Totals {
+		int wins;
+		int draws;
+		int losses;
+		final long[] moves = new long[2];
+		final long[] nanos = new long[2];
+		final long[] nodes = new long[2];
+
+		synchronized void add(int result, SideStats a, SideStats b) {
+			if (result == A_WINS) wins++;
+			else if (result == B_WINS) losses++;
+			else draws++;
+			moves[0] += a.moves;
+			nanos[0] += a.nanos;
+			nodes[0] += a.nodes;
+			moves[1] += b.moves;
+			nanos[1] += b.nanos;
+			nodes[1] += b.nodes;
+		}
+
+		synchronized int games() {
+			return wins + draws + losses;
+		}
+
+		// 同一时刻的 {胜, 和, 负}
+		synchronized int[] counts() {
+			return new int[] {wins, draws, losses};
+		}
+
+		// A 的得分率
+		synchronized double score() {
+			int n = games();
+			return n == 0 ? 0.5 : (wins + 0.5 * draws) / n;
+		}
+
+		/**
+		 * SPRT 的对数似然比（正态近似）：H0 为 A 比 B 强 elo0，H1 为强 elo1。
+		 * LLR ≈ N * (s1 - s0) * (2s - s0 - s1) / (2 * var)，s 为得分率，var 为单局得分的方差。
+		 * 胜/和/负各加 0.5 局，避免全胜或全负时方差为 0。
+		 */
+		synchronized double llr(double elo0, double elo1) {
+			int n = games();
+			if (n == 0) return 0;
+			double[] m = moments();
+			double s0 = expectedScore(elo0);
+			double s1 = expectedScore(elo1);
+			return n * (s1 - s0) * (2 * m[0] - s0 - s1) / (2 * m[1]);
+		}
+
+		// Elo 差及 95% 置信区间半宽
+		synchronized double[] elo() {
+			int n = games();
+			if (n == 0) return new double[] {0, 0};
+			double[] m = moments();
+			double margin = 1.96 * Math.sqrt(m[1] / n);
+			double low = eloFromScore(m[0] - margin);
+			double high = eloFromScore(m[0] + margin);
+			return new double[] {eloFromScore(m[0]), (high - low) / 2};
+		}
+
+		// 加 0.5 局平滑后的 {得分率, 单局得分方差}
+		private double[] moments() {
+			double w = wins + 0.5;
+			double d = draws + 0.5;
+			double l = losses + 0.5;
+			double n = w + d + l;
+			double s = (w + 0.5 * d) / n;
+			double var = (w * (1 - s) * (1 - s) + d * (0.5 - s) * (0.5 - s) + l * s * s) / n;
+			return new double[] {s, var};
+		}
+	}
+
+	private final EngineSpec a;
+	private final EngineSpec b;
+	private final int openingStones;
+	private final long seed;
+	private final Totals totals = new Totals();
+	// SPRT 参数，sprt 为 false 时不使用
+	private boolean sprt = false;
+	private double elo0;
+	private double elo1;
+	private double lowerBound;
+	private double upperBound;
+	private volatile boolean stopped = false;
+	private String sprtResult = null;
+
+	private BufferedWriter out;
+	private boolean json;
+	// 对局期间引擎打印的搜索信息被屏蔽，进度输出到原来的标准输出
+	private final PrintStream console = System.out;
+
+	Tournament(EngineSpec a, EngineSpec b, int openingStones, long seed) {
+		this.a = a;
+		this.b = b;
+		this.openingStones = openingStones;
+		this.seed = seed;
+	}
+
+	public static void main(String[] args) throws Exception {
+		String specA = "minimax:depth=3";
+		String specB = "minimax:depth=3";
+		int games = 100;
+		int workers = Runtime.getRuntime().availableProcessors();
+		int opening = 4;
+		long seed = 1L;
+		String sprtArg = null;
+		String outPath = null;
+		for (int i = 0; i + 1 < args.length; i += 2) {
+			String value = args[i + 1];
+			switch (args[i]) {
+				case "-a" -> specA = value;
+				case "-b" -> specB = value;
+				case "-games" -> games = Integer.parseInt(value);
+				case "-workers" -> workers = Integer.parseInt(value);
+				case "-opening" -> opening = Integer.parseInt(value);
+				case "-seed" -> seed = Long.parseLong(value);
+				case "-sprt" -> sprtArg = value;
+				case "-out" -> outPath = value;
+				default -> throw new IllegalArgumentException("未知的选项: " + args[i]);
+			}
+		}
+
+		Tournament t = new Tournament(EngineSpec.parse(specA), EngineSpec.parse(specB), opening, seed);
+		if (sprtArg != null) {
+			String[] p = sprtArg.split(",");
+			double alpha = p.length > 2 ? Double.parseDouble(p[2]) : 0.05;
+			double beta = p.length > 3 ? Double.parseDouble(p[3]) : 0.05;
+			t.setSprt(Double.parseDouble(p[0]), Double.parseDouble(p[1]), alpha, beta);
+		}
+		if (outPath != null) t.openOutput(outPath);
+		t.run(games, workers);
+	}
+
+	void setSprt(double elo0, double elo1, double alpha, double beta) {
+		this.sprt = true;
+		this.elo0 = elo0;
+		this.elo1 = elo1;
+		this.lowerBound = Math.log(beta / (1 - alpha));
+		this.upperBound = Math.log((1 - beta) / alpha);
+	}
+
+	void openOutput(String path) throws IOException {
+		json = path.endsWith(".json");
+		out = Files.newBufferedWriter(Paths.get(path), StandardCharsets.UTF_8);
+		if (!json) {
+			out.write("game,opening,black,white,result,plies,black_ms_per_move,white_ms_per_move,black_nodes,white_nodes");
+			out.newLine();
+			out.flush();
+		}
+	}
+
+	void run(int games, int workers) throws InterruptedException, IOException {
+		console.println("A: " + a.text + "  B: " + b.text + "  对局数: " + games + "  并行: " + workers
+				+ (sprt ? String.format("  SPRT elo0=%.1f elo1=%.1f 界限 [%.2f, %.2f]", elo0, elo1, lowerBound, upperBound) : ""));
+		long start = System.currentTimeMillis();
+		System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+		try {
+			ExecutorService pool = Executors.newFixedThreadPool(workers);
+			// 每个开局下两局，A 先执黑、再执白
+			for (int pair = 0; pair < (games + 1) / 2; pair++) {
+				int index = pair;
+				int second = Math.min(2, games - 2 * pair);
+				pool.submit(() -> playPair(index, second));
+			}
+			pool.shutdown();
+			pool.awaitTermination(Long.MAX_VALUE, TimeUnit.DAYS);
+		} finally {
+			System.setOut(console);
+			if (out != null) out.close();
+		}
+		report(System.currentTimeMillis() - start);
+	}
+
+	private void playPair(int pair, int count) {
+		if (stopped) return;
+		BitBoard opening = randomOpening(new SplittableRandom(seed * 1_000_003L + pair));
+		for (int k = 0; k < count && !stopped; k++) {
+			boolean aBlack = k == 0;
+			try {
+				playGame(2 * pair + k, opening, aBlack);
+			} catch (RuntimeException e) {
+				console.println("第 " + (2 * pair + k + 1) + " 局异常: " + e);
+			}
+		}
+	}
+
+	private void playGame(int index, BitBoard opening, boolean aBlack) {
+		BitBoard position = new BitBoard(opening);
+		EngineSpec blackSpec = aBlack ? a : b;
+		EngineSpec whiteSpec = aBlack ? b : a;
+		Board blackBoard = new Board(BOARD_SIZE);
+		Board whiteBoard = new Board(BOARD_SIZE);
+		Engine black = blackSpec.create(blackBoard);
+		Engine white = whiteSpec.create(whiteBoard);
+		SideStats blackStats = new SideStats();
+		SideStats whiteStats = new SideStats();
+
+		int winner = BitBoard.EMPTY;
+		int color = position.getStoneCount() % 2 == 0 ? BitBoard.BLACK : BitBoard.WHITE;
+		int plies = 0;
+		try {
+			while (position.getStoneCount() < MAX_PLIES) {
+				boolean blackToMove = color == BitBoard.BLACK;
+				Board board = blackToMove ? blackBoard : whiteBoard;
+				Engine engine = blackToMove ? black : white;
+				SideStats stats = blackToMove ? blackStats : whiteStats;
+				load(board, position, color);
+
+				long t0 = System.nanoTime();
+				int[] move = engine.calculateNextMove((blackToMove ? blackSpec : whiteSpec).limit);
+				stats.nanos += System.nanoTime() - t0;
+				stats.moves++;
+				SearchStats last = engine.getLastStats();
+				stats.nodes += last.getNodes() + last.getQuiescenceNodes();
+				plies++;
+
+				int opp = blackToMove ? BitBoard.WHITE : BitBoard.BLACK;
+				// 没有着法或着法非法：判负
+				if (move == null || !position.isEmpty(move[0], move[1])) {
+					winner = opp;
+					break;
+				}
+				position.place(move[0], move[1], color);
+				if (position.getScore(blackToMove, !blackToMove) >= Minimax.getWinScore()) {
+					winner = color;
+					break;
+				}
+				color = opp;
+			}
+		} finally {
+			black.close();
+			white.close();
+		}
+
+		int result = winner == BitBoard.EMPTY ? DRAW
+				: (winner == BitBoard.BLACK) == aBlack ? A_WINS : B_WINS;
+		totals.add(result, aBlack ? blackStats : whiteStats, aBlack ? whiteStats : blackStats);
+		record(index, opening, aBlack, winner, plies, blackStats, whiteStats);
+
+		if (sprt) {
+			double llr = totals.llr(elo0, elo1);
+			synchronized (this) {
+				if (sprtResult == null && (llr >= upperBound || llr <= lowerBound)) {
+					sprtResult = llr >= upperBound ? "接受 H1（A 至少强 " + elo1 + " Elo）" : "接受 H0（A 不强于 " + elo0 + " Elo）";
+					stopped = true;
+				}
+			}
+		}
+	}
+
+	// 把局面写入引擎的棋盘；轮到黑棋时交换双方颜色，使引擎总是为白棋思考
+	private static void load(Board board, BitBoard position, int color) {
+		board.reset();
+		int n = position.getSize();
+		for (int row = 0; row < n; row++) {
+			for (int col = 0; col < n; col++) {
+				int stone = position.get(row, col);
+				if (stone == BitBoard.EMPTY) continue;
+				boolean black = (stone == BitBoard.BLACK) != (color == BitBoard.BLACK);
+				board.addStoneNoGUI(col, row, black);
+			}
+		}
+	}
+
+	// 中心附近随机落 openingStones 子，黑先，不产生连五
+	private BitBoard randomOpening(SplittableRandom random) {
+		int n = BOARD_SIZE;
+		BitBoard board = new BitBoard(n);
+		int color = BitBoard.BLACK;
+		while (board.getStoneCount() < openingStones) {
+			int row = n / 2 - 3 + random.nextInt(7);
+			int col = n / 2 - 3 + random.nextInt(7);
+			if (!board.isEmpty(row, col)) continue;
+			board.place(row, col, color);
+			if (board.getScore(color == BitBoard.BLACK, color != BitBoard.BLACK) >= Minimax.getWinScore()) {
+				board.remove(row, col);
+				continue;
+			}
+			color = color == BitBoard.WHITE ? BitBoard.BLACK : BitBoard.WHITE;
+		}
+		return board;
+	}
+
+	// 追加一局的结果到结果文件，并输出进度
+	private synchronized void record(int index, BitBoard opening, boolean aBlack, int winner, int plies,
+			SideStats blackStats, SideStats whiteStats) {
+		String result = winner == BitBoard.BLACK ? "1-0" : winner == BitBoard.WHITE ? "0-1" : "1/2-1/2";
+		String blackName = aBlack ? "A" : "B";
+		String whiteName = aBlack ? "B" : "A";
+		if (out != null) {
+			StringBuilder stones = new StringBuilder();
+			int n = opening.getSize();
+			for (int cell = 0; cell < n * n; cell++) {
+				if (opening.isEmpty(cell / n, cell % n)) continue;
+				if (stones.length() > 0) stones.append(' ');
+				stones.append(cell / n).append(':').append(cell % n);
+			}
+			try {
+				if (json) {
+					out.write(String.format("{\"game\":%d,\"opening\":\"%s\",\"black\":\"%s\",\"white\":\"%s\",\"result\":\"%s\","
+							+ "\"plies\":%d,\"black_ms_per_move\":%.2f,\"white_ms_per_move\":%.2f,\"black_nodes\":%d,\"white_nodes\":%d}",
+							index + 1, stones, blackName, whiteName, result, plies, msPerMove(blackStats), msPerMove(whiteStats),
+							blackStats.nodes, whiteStats.nodes));
+				} else {
+					out.write(String.format("%d,%s,%s,%s,%s,%d,%.2f,%.2f,%d,%d", index + 1, stones, blackName, whiteName,
+							result, plies, msPerMove(blackStats), msPerMove(whiteStats), blackStats.nodes, whiteStats.nodes));
+				}
+				out.newLine();
+				out.flush();
+			} catch (IOException e) {
+				console.println("结果文件写入失败: " + e.getMessage());
+				out = null;
+			}
+		}
+		int[] counts = totals.counts();
+		String progress = String.format("第 %d 局 黑 %s 白 %s：%s（%d 手）  累计 A 胜 %d 和 %d 负 %d", index + 1,
+				blackName, whiteName, result, plies, counts[0], counts[1], counts[2]);
+		if (sprt) progress += String.format("  LLR %.2f", totals.llr(elo0, elo1));
+		console.println(progress);
+	}
+
+	private void report(long elapsedMillis) {
+		double[] elo = totals.elo();
+		int[] counts = totals.counts();
+		console.println("==============================");
+		console.println("A: " + a.text);
+		console.println("B: " + b.text);
+		console.printf("对局数 %d：A 胜 %d 和 %d 负 %d，得分率 %.1f%%，Elo 差 %+.1f ± %.1f%n", totals.games(),
+				counts[0], counts[1], counts[2], 100 * totals.score(), elo[0], elo[1]);
+		String[] names = {"A", "B"};
+		for (int i = 0; i < 2; i++) {
+			long moves = totals.moves[i];
+			long nanos = totals.nanos[i];
+			console.printf("%s：平均每步 %.1f ms，%.0f 节点/秒%n", names[i],
+					moves == 0 ? 0 : nanos / 1e6 / moves, nanos == 0 ? 0 : totals.nodes[i] * 1e9 / nanos);
+		}
+		if (sprt) {
+			console.printf("SPRT：LLR %.2f，%s%n", totals.llr(elo0, elo1), sprtResult != null ? sprtResult : "未达到界限");
+		}
+		console.println("总耗时 " + elapsedMillis / 1000 + " s");
+	}
+
+	private static double msPerMove(SideStats stats) {
+		return stats.moves == 0 ? 0 : stats.nanos / 1e6 / stats.moves;
+	}
+
+	static double expectedScore(double elo) {
+		return 1 / (1 + Math.pow(10, -elo / 400));
+	}
+
+	static double eloFromScore(double score) {
+		score = Math.max(1e-6, Math.min(1 - 1e-6, score));
+		return -400 * Math.log10(1 / score - 1);
+	}
+}
@@ -0,0 +1,134 @@
+/**
+ * 置换表：以 Zobrist 键缓存已搜索过的局面。
+ * 相同棋子以不同顺序落下会得到同一局面，命中后可直接复用结果或至少先搜上次的最佳着法。
+ *
+ * 每个条目保存：键、得分、深度、边界类型（精确/下界/上界）、最佳着法、代数。
+ * 表按两路组相联组织（相邻两个槽为一组），替换策略：
+ * - 同键条目直接覆盖；
+ * - 否则替换组内“旧代数”或“深度更浅”的那一个，保留更有价值的深层结果。
+ *
+ * 无锁共享（Lazy SMP）：条目的所有内容打包进一个 long（data），
+ * 键槽中保存 key ^ data。读取时先取 data 再取键槽，只有 (键槽 ^ data) == key 才算命中，
+ * 因此被其他线程写了一半的条目会表现为未命中，而不会读到错配的内容。
+ */
+public class TranspositionTable {
+
+	public static final int EXACT = 0; // 精确值
+	public static final int LOWER = 1; // 下界（发生了 beta 截断）
+	public static final int UPPER = 2; // 上界（所有着法都不超过 alpha）
+
+	public static final int NO_MOVE = -1;
+
+	// 每个条目占用的字节数：key(8) + data(8)
+	private static final int ENTRY_BYTES = 16;
+
+	// data 打包：[0,16) 着法+1, [16,24) 深度, [24,26) 边界类型, [26,32) 代数, [32,64) 得分
+	private final long[] keys;
+	private final long[] datas;
+	private final int mask;
+
+	private volatile int generation = 0;
+
+	/** megabytes: 内存预算（MB），条目数取不超过预算的最大 2 的幂 */
+	public TranspositionTable(int megabytes) {
+		long budget = Math.max(1, megabytes) * 1024L * 1024L;
+		long entries = Long.highestOneBit(Math.max(2, budget / ENTRY_BYTES));
+		entries = Math.min(entries, 1 << 30);
+		keys = new long[(int) entries];
+		datas = new long[(int) entries];
+		mask = (int) entries - 2; // 组起点总是偶数
+	}
+
+	public int capacity() {
+		return keys.length;
+	}
+
+	/** 清空整个表（调用时不应有搜索在进行） */
+	public void clear() {
+		java.util.Arrays.fill(keys, 0L);
+		java.util.Arrays.fill(datas, 0L);
+		generation = 0;
+	}
+
+	/** 每次新搜索开始时调用，使旧结果在替换时优先被淘汰 */
+	public void newSearch() {
+		generation = (generation + 1) & 0x3F;
+	}
+
+	/**
+	 * 查找局面。
+	 * 返回打包后的条目，未命中返回 0。通过静态的 getXxx(entry) 解包。
+	 */
+	public long probe(long key) {
+		int slot = (int) key & mask;
+		long data = datas[slot];
+		if (data != 0 && (keys[slot] ^ data) == key) return data;
+		data = datas[slot + 1];
+		if (data != 0 && (keys[slot + 1] ^ data) == key) return data;
+		return 0L;
+	}
+
+	public static int getScore(long entry) {
+		return (int) (entry >> 32);
+	}
+
+	public static int getDepth(long entry) {
+		return (int) (entry >>> 16) & 0xFF;
+	}
+
+	public static int getFlag(long entry) {
+		return (int) (entry >>> 24) & 0x3;
+	}
+
+	public static int getMove(long entry) {
+		return (int) (entry & 0xFFFF) - 1;
+	}
+
+	private static int getGeneration(long entry) {
+		return (int) (entry >>> 26) & 0x3F;
+	}
+
+	/** 写入一个条目，move 为格子编号，没有着法时传 NO_MOVE */
+	public void store(long key, int depth, int flag, int score, int move) {
+		int slot = (int) key & mask;
+		int gen = generation;
+		long d0 = datas[slot];
+		long d1 = datas[slot + 1];
+
+		int target;
+		long old = 0L;
+		if (d0 != 0 && (keys[slot] ^ d0) == key) {
+			target = slot;
+			old = d0;
+		} else if (d1 != 0 && (keys[slot + 1] ^ d1) == key) {
+			target = slot + 1;
+			old = d1;
+		} else if (d0 == 0) {
+			target = slot;
+		} else if (d1 == 0) {
+			target = slot + 1;
+		} else {
+			// 两个槽都被其他局面占用：优先淘汰旧代数的，再淘汰深度较浅的
+			target = priority(d0, gen) <= priority(d1, gen) ? slot : slot + 1;
+		}
+
+		// 同一局面本轮已有更深的结果时不覆盖；新结果没有着法时沿用旧的最佳着法
+		if (old != 0) {
+			if (getGeneration(old) == gen && getDepth(old) > depth) return;
+			if (move == NO_MOVE) move = getMove(old);
+		}
+
+		long data = (move + 1L)
+				| ((long) Math.min(depth, 0xFF) << 16)
+				| ((long) flag << 24)
+				| ((long) gen << 26)
+				| ((long) score << 32);
+		datas[target] = data;
+		keys[target] = key ^ data;
+	}
+
+	// 替换优先级：越小越先被替换。当前代数的条目额外加权。
+	private static int priority(long entry, int gen) {
+		return getDepth(entry) + (getGeneration(entry) == gen ? 256 : 0);
+	}
+}